@@ -0,0 +1,117 @@
+package com.f119589.data.client;
+
+import com.f119589.data.entity.AssetPair;
+import com.f119589.dto.AssetPairsResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Streams the AssetPairs payload straight into the final, sorted catalog rows.
+ * <p>
+ * Only altname/wsname/base/quote are read per pair; fee schedules, leverage tables and the other
+ * ~20 fields are skipped without being materialised.
+ */
+public final class AssetPairsResponseAdapter extends TypeAdapter<AssetPairsResponse> {
+
+    // Same order as AssetPairDao.getAllSync (SQLite sorts NULLs first), so the two lists compare equal
+    private static final Comparator<AssetPair> CATALOG_ORDER = Comparator
+            .comparing(AssetPair::getQuote, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(AssetPair::getBase, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(AssetPair::getWsName);
+
+    @Override
+    public AssetPairsResponse read(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        List<String> errors = Collections.emptyList();
+        List<AssetPair> pairs = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "error":
+                    errors = KrakenJson.readErrors(reader);
+                    break;
+                case "result":
+                    pairs = readPairs(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return new AssetPairsResponse(errors, pairs);
+    }
+
+    private static List<AssetPair> readPairs(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        List<AssetPair> pairs = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String resultKey = reader.nextName();
+            AssetPair pair = readPair(reader, resultKey);
+            if (pair != null) pairs.add(pair);
+        }
+        reader.endObject();
+        pairs.sort(CATALOG_ORDER);
+        return pairs;
+    }
+
+    private static AssetPair readPair(JsonReader reader, String resultKey) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String altName = null;
+        String wsName = null;
+        String base = null;
+        String quote = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "altname":
+                    altName = KrakenJson.nextStringOrNull(reader);
+                    break;
+                case "wsname":
+                    wsName = KrakenJson.nextStringOrNull(reader);
+                    break;
+                case "base":
+                    base = KrakenNames.trimPrefix(KrakenJson.nextStringOrNull(reader));
+                    break;
+                case "quote":
+                    quote = KrakenNames.trimPrefix(KrakenJson.nextStringOrNull(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (altName == null || wsName == null) return null;
+        return new AssetPair(wsName, resultKey, altName, KrakenNames.prettifyDisplay(base, quote), base, quote);
+    }
+
+    /**
+     * Decode-only: responses are never serialised, so anything written is a JSON null.
+     */
+    @Override
+    public void write(JsonWriter out, AssetPairsResponse value) throws IOException {
+        out.nullValue();
+    }
+}
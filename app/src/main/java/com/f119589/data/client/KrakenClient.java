@@ -6,12 +6,16 @@ import com.f119589.dto.TickerResponse;
 
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Query;
 
 public interface KrakenClient {
 
+    /**
+     * @param etag validator from a previous response, or null for an unconditional fetch.
+     */
     @GET("/0/public/AssetPairs")
-    Call<AssetPairsResponse> getAssetPairs();
+    Call<AssetPairsResponse> getAssetPairs(@Header("If-None-Match") String etag);
 
     @GET("/0/public/OHLC")
     Call<OhlcResponse> getOhlc(
@@ -20,6 +24,9 @@ public interface KrakenClient {
             @Query("since") Long since
     );
 
+    /**
+     * @param pairAltNames one alt name or a comma-separated list of them.
+     */
     @GET("/0/public/Ticker")
-    Call<TickerResponse> getTicker(@Query("pair") String pairAltName);
+    Call<TickerResponse> getTicker(@Query("pair") String pairAltNames);
 }
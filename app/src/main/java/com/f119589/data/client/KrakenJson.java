@@ -0,0 +1,45 @@
+package com.f119589.data.client;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Small JsonReader helpers shared by the hand-written Kraken REST adapters.
+ */
+final class KrakenJson {
+
+    private KrakenJson() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Kraken's top-level "error" array; empty on success.
+     */
+    static List<String> readErrors(JsonReader reader) throws IOException {
+        List<String> errors = new ArrayList<>();
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return errors;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String error = nextStringOrNull(reader);
+            if (error != null) errors.add(error);
+        }
+        reader.endArray();
+        return errors;
+    }
+
+    static String nextStringOrNull(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+}
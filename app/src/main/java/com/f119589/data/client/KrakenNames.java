@@ -0,0 +1,39 @@
+package com.f119589.data.client;
+
+import java.util.Locale;
+
+/**
+ * Naming helpers for Kraken assets and pairs, shared by the catalog decoder and the repository.
+ */
+public final class KrakenNames {
+
+    private KrakenNames() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Kraken bases/quotes sometimes include prefixes like 'X'/'Z' (e.g., "XXBT","ZUSD"). Strip leading non-letters.
+     */
+    public static String trimPrefix(String v) {
+        if (v == null) return null;
+        return v.replaceAll("^[^A-Z]*", "");
+    }
+
+    /**
+     * Prefer wsName for display; optionally map XBT->BTC if desired.
+     */
+    public static String prettifyDisplay(String base, String quote) {
+        String baseUi = mapTickerUi(base);
+        String quoteUi = mapTickerUi(quote);
+        return String.format(Locale.US, "%s/%s", baseUi, quoteUi);
+    }
+
+    private static String mapTickerUi(String a) {
+        if (a == null) return "";
+        if (a.equalsIgnoreCase("XBT")) return "BTC";
+        if (a.equalsIgnoreCase("XDG")) return "DOGE";
+        if (a.equalsIgnoreCase("XETH")) return "ETH";
+        // Add more aliases if you wish; by default return original.
+        return a.toUpperCase(Locale.US);
+    }
+}
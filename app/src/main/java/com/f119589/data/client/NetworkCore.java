@@ -0,0 +1,215 @@
+package com.f119589.data.client;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * The app's single HTTP stack: one {@link OkHttpClient} (one connection pool, one cache) shared by the REST
+ * clients and the WebSocket service.
+ * <p>
+ * On top of plain OkHttp it adds a bounded disk cache with fixed TTLs for the slow-changing endpoints
+ * (the public APIs mostly send no caching headers), a token-bucket limiter per host that only throttles
+ * real network calls (cache hits are free), and counters for cache hit rate and throttle waits.
+ * <p>
+ * WebSockets get their own dispatcher ({@link #webSocketClient()}): OkHttp runs each socket's reader loop
+ * inside its dispatcher call, so a socket holds a per-host slot for its whole life and would otherwise
+ * compete with REST calls and with its own replacement during a reconnect.
+ */
+public final class NetworkCore {
+
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024;
+    private static final long DEFAULT_RETRY_AFTER_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_REST_REQUESTS_PER_HOST = 4;
+    // Room for every shard's socket plus the ones being replaced during a reconnect or protocol switch
+    private static final int MAX_WEBSOCKETS_PER_HOST = 16;
+
+    // Tries the disk cache without touching the network; a stale or missing entry yields a 504
+    private static final CacheControl ONLY_IF_FRESH_CACHE = new CacheControl.Builder().onlyIfCached().build();
+
+    // Response freshness forced onto GET endpoints that change slowly, in seconds
+    private static final Map<String, Long> TTL_BY_PATH = Map.of(
+            "/api/v3/global", 60L,
+            "/0/public/AssetPairs", TimeUnit.HOURS.toSeconds(1)
+    );
+
+    public record Metrics(long requests,
+                          long cacheHits,
+                          long conditionalHits,
+                          long networkCalls,
+                          long throttledCalls,
+                          long throttleWaitMs,
+                          long rateLimited) {
+        /**
+         * Share of requests answered from the disk cache without a full download (fresh or revalidated).
+         */
+        public double cacheHitRate() {
+            return requests == 0 ? 0d : (double) (cacheHits + conditionalHits) / requests;
+        }
+    }
+
+    private static volatile NetworkCore INSTANCE;
+
+    private final OkHttpClient client;
+    private final OkHttpClient webSocketClient;
+
+    // Public limits: Kraken ~1 call/s with a small burst; CoinGecko's free tier ~10 calls/min
+    private final Map<String, TokenBucket> limiters = Map.of(
+            "api.kraken.com", new TokenBucket(5, TimeUnit.SECONDS.toMillis(1)),
+            "api.coingecko.com", new TokenBucket(3, TimeUnit.SECONDS.toMillis(6))
+    );
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong conditionalHits = new AtomicLong();
+    private final AtomicLong networkCalls = new AtomicLong();
+    private final AtomicLong throttledCalls = new AtomicLong();
+    private final AtomicLong throttleWaitMs = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    private NetworkCore(Context appContext) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REST_REQUESTS_PER_HOST);
+
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+                .cache(new Cache(new File(appContext.getCacheDir(), "http"), CACHE_SIZE_BYTES))
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(20, TimeUnit.SECONDS)
+                .addInterceptor(this::countCacheOutcome)
+                .addInterceptor(this::throttle)
+                .addNetworkInterceptor(this::countAndApplyTtl)
+                .build();
+
+        Dispatcher webSocketDispatcher = new Dispatcher();
+        webSocketDispatcher.setMaxRequestsPerHost(MAX_WEBSOCKETS_PER_HOST);
+        // Same pool and interceptors, separate slots
+        this.webSocketClient = client.newBuilder()
+                .dispatcher(webSocketDispatcher)
+                .build();
+    }
+
+    public static NetworkCore get(Context ctx) {
+        if (INSTANCE == null) {
+            synchronized (NetworkCore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new NetworkCore(ctx.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public OkHttpClient client() {
+        return client;
+    }
+
+    /**
+     * Client for WebSockets: shares the connection pool with {@link #client()} but not its dispatcher limits.
+     */
+    public OkHttpClient webSocketClient() {
+        return webSocketClient;
+    }
+
+    public Metrics metrics() {
+        return new Metrics(requests.get(), cacheHits.get(), conditionalHits.get(), networkCalls.get(),
+                throttledCalls.get(), throttleWaitMs.get(), rateLimited.get());
+    }
+
+    /**
+     * Application interceptor: sees every call once, including those the cache answers.
+     */
+    private Response countCacheOutcome(Interceptor.Chain chain) throws IOException {
+        requests.incrementAndGet();
+        Response response = chain.proceed(chain.request());
+        if (response.cacheResponse() != null) {
+            if (response.networkResponse() == null) {
+                cacheHits.incrementAndGet();
+            } else if (response.networkResponse().code() == 304) {
+                conditionalHits.incrementAndGet();
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Application interceptor: waits for a token of rate-limited hosts before any connection is taken, so a
+     * held-back call never sits on a pooled connection. A GET is first tried against the cache alone; only a
+     * miss or a stale entry (which may still be revalidated) pays for a token.
+     */
+    private Response throttle(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        TokenBucket bucket = limiters.get(request.url().host());
+        if (bucket == null) return chain.proceed(request);
+
+        if ("GET".equals(request.method()) && !request.cacheControl().noCache()) {
+            Response cached = chain.proceed(request.newBuilder().cacheControl(ONLY_IF_FRESH_CACHE).build());
+            if (cached.cacheResponse() != null) return cached;
+            cached.close();
+        }
+
+        try {
+            long waited = bucket.acquire();
+            if (waited > 0) {
+                throttledCalls.incrementAndGet();
+                throttleWaitMs.addAndGet(waited);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for rate limit");
+        }
+
+        Response response = chain.proceed(request);
+        if (response.code() == 429) {
+            rateLimited.incrementAndGet();
+            bucket.pause(retryAfterMs(response));
+        }
+        return response;
+    }
+
+    /**
+     * Network interceptor: only runs for calls that actually go to the server.
+     */
+    private Response countAndApplyTtl(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        networkCalls.incrementAndGet();
+        Response response = chain.proceed(request);
+
+        Long ttlSec = TTL_BY_PATH.get(request.url().encodedPath());
+        if (ttlSec != null && response.isSuccessful() && "GET".equals(request.method())) {
+            response = response.newBuilder()
+                    .header("Cache-Control", "public, max-age=" + ttlSec)
+                    .removeHeader("Pragma")
+                    .removeHeader("Expires")
+                    .build();
+        }
+        return response;
+    }
+
+    private static long retryAfterMs(Response response) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form; fall back to the default
+            }
+        }
+        return DEFAULT_RETRY_AFTER_MS;
+    }
+}
@@ -0,0 +1,104 @@
+package com.f119589.data.client;
+
+import com.f119589.data.series.OhlcSeries;
+import com.f119589.dto.OhlcResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams OHLC rows straight into an {@link OhlcSeries} (primitive time/close arrays).
+ * <p>
+ * Rows are {@code [time, "open", "high", "low", "close", "vwap", "volume", count]}; only time and close
+ * are kept. The result object holds one array keyed by Kraken's canonical pair name plus the "last" cursor.
+ */
+public final class OhlcResponseAdapter extends TypeAdapter<OhlcResponse> {
+
+    private static final int CLOSE_INDEX = 4;
+
+    @Override
+    public OhlcResponse read(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        List<String> errors = Collections.emptyList();
+        OhlcSeries series = null;
+        long last = 0L;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "error":
+                    errors = KrakenJson.readErrors(reader);
+                    break;
+                case "result":
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        JsonToken token = reader.peek();
+                        if ("last".equals(name) && token == JsonToken.NUMBER) {
+                            last = reader.nextLong();
+                        } else if (series == null && token == JsonToken.BEGIN_ARRAY) {
+                            series = readRows(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return new OhlcResponse(errors, series, last);
+    }
+
+    private static OhlcSeries readRows(JsonReader reader) throws IOException {
+        // ~24h of 5-minute candles on a full fetch
+        OhlcSeries series = new OhlcSeries(300);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            long time = 0L;
+            double close = Double.NaN;
+            int i = 0;
+            for (; reader.hasNext(); i++) {
+                if (i == 0) {
+                    time = reader.nextLong();
+                } else if (i == CLOSE_INDEX) {
+                    close = reader.nextDouble(); // numeric strings are accepted
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endArray();
+            if (i > CLOSE_INDEX) series.add(time, close);
+        }
+        reader.endArray();
+        return series;
+    }
+
+    /**
+     * Decode-only: responses are never serialised, so anything written is a JSON null.
+     */
+    @Override
+    public void write(JsonWriter out, OhlcResponse value) throws IOException {
+        out.nullValue();
+    }
+}
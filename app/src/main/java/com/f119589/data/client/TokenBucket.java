@@ -0,0 +1,66 @@
+package com.f119589.data.client;
+
+import android.os.SystemClock;
+
+/**
+ * Blocking token bucket: {@code capacity} requests of burst, refilled at one token per {@code refillIntervalMs}.
+ * A server-side rate-limit response can pause the bucket until the server's retry time.
+ */
+final class TokenBucket {
+
+    private final int capacity;
+    private final long refillIntervalMs;
+
+    // Guarded by this
+    private double tokens;
+    private long lastRefillAt;
+    private long pausedUntil;
+
+    TokenBucket(int capacity, long refillIntervalMs) {
+        this.capacity = capacity;
+        this.refillIntervalMs = refillIntervalMs;
+        this.tokens = capacity;
+        this.lastRefillAt = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Takes one token, sleeping until one is available.
+     *
+     * @return how long the caller was held back, in ms.
+     */
+    long acquire() throws InterruptedException {
+        long waited = 0L;
+        while (true) {
+            long waitMs;
+            synchronized (this) {
+                long now = SystemClock.elapsedRealtime();
+                refill(now);
+                if (now >= pausedUntil && tokens >= 1d) {
+                    tokens -= 1d;
+                    return waited;
+                }
+                waitMs = Math.max(pausedUntil - now, (long) Math.ceil((1d - tokens) * refillIntervalMs));
+            }
+            waitMs = Math.max(1L, waitMs);
+            Thread.sleep(waitMs);
+            waited += waitMs;
+        }
+    }
+
+    /**
+     * Empties the bucket and blocks it for {@code pauseMs}, e.g. after a 429 with Retry-After.
+     */
+    synchronized void pause(long pauseMs) {
+        long now = SystemClock.elapsedRealtime();
+        refill(now);
+        tokens = 0d;
+        pausedUntil = Math.max(pausedUntil, now + pauseMs);
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillAt;
+        if (elapsed <= 0) return;
+        tokens = Math.min(capacity, tokens + (double) elapsed / refillIntervalMs);
+        lastRefillAt = now;
+    }
+}
@@ -1,6 +1,8 @@
 package com.f119589.data.db;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.room.Database;
@@ -9,13 +11,24 @@ import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.f119589.data.entity.AssetPair;
 import com.f119589.data.entity.FavouritePair;
+import com.f119589.data.entity.LivePrice;
+import com.f119589.data.entity.SyncState;
+import com.f119589.data.series.OhlcSeries;
+import com.f119589.data.series.OhlcSeriesCodec;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Database(
         entities = {
-                FavouritePair.class
+                FavouritePair.class,
+                LivePrice.class,
+                AssetPair.class,
+                SyncState.class
         },
-        version = 4,
+        version = 9,
         exportSchema = false
 )
 public abstract class AppDb extends RoomDatabase {
@@ -43,8 +56,100 @@ public abstract class AppDb extends RoomDatabase {
         }
     };
 
+    /**
+     * Moves lastPrice/lastUpdated/change24hPercent out of favorites into live_prices,
+     * rebuilding favorites without them (SQLite before 3.35 has no DROP COLUMN).
+     */
+    private static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS live_prices ("
+                    + "symbol TEXT NOT NULL, lastPrice REAL NOT NULL, lastUpdated INTEGER NOT NULL, "
+                    + "change24hPercent REAL, PRIMARY KEY(symbol))");
+            db.execSQL("INSERT OR REPLACE INTO live_prices (symbol, lastPrice, lastUpdated, change24hPercent) "
+                    + "SELECT symbol, lastPrice, lastUpdated, change24hPercent FROM favorites");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS favorites_new ("
+                    + "symbol TEXT NOT NULL, displayName TEXT, ohlc24hJson TEXT, "
+                    + "ohlc24hUpdatedAt INTEGER NOT NULL, ohlc24hFirstClose REAL, PRIMARY KEY(symbol))");
+            db.execSQL("INSERT INTO favorites_new (symbol, displayName, ohlc24hJson, ohlc24hUpdatedAt, ohlc24hFirstClose) "
+                    + "SELECT symbol, displayName, ohlc24hJson, ohlc24hUpdatedAt, ohlc24hFirstClose FROM favorites");
+            db.execSQL("DROP TABLE favorites");
+            db.execSQL("ALTER TABLE favorites_new RENAME TO favorites");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_favorites_displayName ON favorites (displayName)");
+        }
+    };
+
+    private static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE favorites ADD COLUMN ohlc24hCursor INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * Replaces the ohlc24hJson TEXT column with the binary ohlc24hBlob, converting existing rows.
+     * Rows whose JSON can't be read lose their cache (and cursor) and are simply refetched.
+     */
+    private static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            List<String> symbols = new ArrayList<>();
+            List<byte[]> blobs = new ArrayList<>();
+            try (Cursor c = db.query("SELECT symbol, ohlc24hJson FROM favorites WHERE ohlc24hJson IS NOT NULL")) {
+                while (c.moveToNext()) {
+                    try {
+                        OhlcSeries series = OhlcSeries.fromCompactJson(c.getString(1));
+                        symbols.add(c.getString(0));
+                        blobs.add(OhlcSeriesCodec.encode(series));
+                    } catch (Exception ex) {
+                        Log.w("AppDb", "Dropping unreadable OHLC cache for " + c.getString(0), ex);
+                    }
+                }
+            }
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS favorites_new ("
+                    + "symbol TEXT NOT NULL, displayName TEXT, ohlc24hBlob BLOB, "
+                    + "ohlc24hUpdatedAt INTEGER NOT NULL, ohlc24hFirstClose REAL, "
+                    + "ohlc24hCursor INTEGER NOT NULL, PRIMARY KEY(symbol))");
+            db.execSQL("INSERT INTO favorites_new (symbol, displayName, ohlc24hUpdatedAt, ohlc24hFirstClose, ohlc24hCursor) "
+                    + "SELECT symbol, displayName, ohlc24hUpdatedAt, ohlc24hFirstClose, 0 FROM favorites");
+            for (int i = 0; i < symbols.size(); i++) {
+                db.execSQL("UPDATE favorites_new SET ohlc24hBlob = ?, ohlc24hCursor = "
+                                + "(SELECT ohlc24hCursor FROM favorites WHERE symbol = ?) WHERE symbol = ?",
+                        new Object[]{blobs.get(i), symbols.get(i), symbols.get(i)});
+            }
+            db.execSQL("DROP TABLE favorites");
+            db.execSQL("ALTER TABLE favorites_new RENAME TO favorites");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_favorites_displayName ON favorites (displayName)");
+        }
+    };
+
+    private static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE live_prices ADD COLUMN low24h REAL");
+            db.execSQL("ALTER TABLE live_prices ADD COLUMN high24h REAL");
+        }
+    };
+
+    private static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS asset_pairs ("
+                    + "wsName TEXT NOT NULL, resultKey TEXT, altName TEXT, display TEXT, "
+                    + "base TEXT, quote TEXT, PRIMARY KEY(wsName))");
+            db.execSQL("CREATE TABLE IF NOT EXISTS sync_state ("
+                    + "`key` TEXT NOT NULL, validatedAt INTEGER NOT NULL, etag TEXT, PRIMARY KEY(`key`))");
+        }
+    };
+
     public abstract FavouritePairDao favoritePairDao();
 
+    public abstract LivePriceDao livePriceDao();
+
+    public abstract AssetPairDao assetPairDao();
+
     public static AppDb get(@NonNull Context context) {
         if (INSTANCE == null) {
             synchronized (AppDb.class) {
@@ -54,7 +159,7 @@ public abstract class AppDb extends RoomDatabase {
                                     AppDb.class,
                                     "cryptowatch.db"
                             )
-                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9)
                             .build();
                 }
             }
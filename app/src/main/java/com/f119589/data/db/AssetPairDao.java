@@ -0,0 +1,37 @@
+package com.f119589.data.db;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.f119589.data.entity.AssetPair;
+import com.f119589.data.entity.SyncState;
+
+import java.util.List;
+
+@Dao
+public interface AssetPairDao {
+
+    @Query("SELECT * FROM asset_pairs ORDER BY quote ASC, base ASC, wsName ASC")
+    List<AssetPair> getAllSync();
+
+    @Query("DELETE FROM asset_pairs")
+    void deleteAll();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<AssetPair> pairs);
+
+    @Transaction
+    default void replaceAll(List<AssetPair> pairs) {
+        deleteAll();
+        insertAll(pairs);
+    }
+
+    @Query("SELECT * FROM sync_state WHERE `key` = :key LIMIT 1")
+    SyncState findSyncState(String key);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertSyncState(SyncState state);
+}
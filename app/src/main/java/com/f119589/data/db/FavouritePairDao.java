@@ -29,9 +29,6 @@ public interface FavouritePairDao {
     @Delete
     void delete(FavouritePair entity);
 
-    @Query("UPDATE favorites SET lastPrice = :price, lastUpdated = :updatedAt, change24hPercent = :changePercent WHERE symbol = :symbol")
-    void updatePriceAndChange(String symbol, double price, long updatedAt, Double changePercent);
-
-    @Query("UPDATE favorites SET ohlc24hJson = :json, ohlc24hUpdatedAt = :updatedAt, change24hPercent = :changePercent, ohlc24hFirstClose = :firstClose WHERE symbol = :symbol")
-    void updateOhlcCache(String symbol, String json, long updatedAt, Double changePercent, Double firstClose);
+    @Query("UPDATE favorites SET ohlc24hBlob = :blob, ohlc24hUpdatedAt = :updatedAt, ohlc24hFirstClose = :firstClose, ohlc24hCursor = :cursor WHERE symbol = :symbol")
+    void updateOhlcCache(String symbol, byte[] blob, long updatedAt, Double firstClose, long cursor);
 }
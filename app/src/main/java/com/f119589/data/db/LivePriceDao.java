@@ -0,0 +1,55 @@
+package com.f119589.data.db;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.f119589.data.entity.LivePrice;
+import com.f119589.dto.PriceUpdate;
+
+import java.util.List;
+
+@Dao
+public interface LivePriceDao {
+
+    @Query("SELECT * FROM live_prices")
+    LiveData<List<LivePrice>> observeAll();
+
+    @Query("UPDATE live_prices SET lastPrice = :price, lastUpdated = :updatedAt, "
+            + "change24hPercent = COALESCE(:changePercent, change24hPercent), "
+            + "low24h = COALESCE(:low, low24h), high24h = COALESCE(:high, high24h) WHERE symbol = :symbol")
+    int updatePriceAndStats(String symbol, double price, long updatedAt, Double changePercent, Double low, Double high);
+
+    /**
+     * Inserts a row only for symbols that are still favourites, so late ticks for a removed pair are dropped.
+     */
+    @Query("INSERT OR IGNORE INTO live_prices (symbol, lastPrice, lastUpdated, change24hPercent, low24h, high24h) "
+            + "SELECT symbol, :price, :updatedAt, :changePercent, :low, :high FROM favorites WHERE symbol = :symbol")
+    void insertForFavourite(String symbol, double price, long updatedAt, Double changePercent, Double low, Double high);
+
+    @Query("UPDATE live_prices SET change24hPercent = :changePercent, low24h = :low, high24h = :high WHERE symbol = :symbol")
+    int updateStats(String symbol, Double changePercent, Double low, Double high);
+
+    @Query("DELETE FROM live_prices WHERE symbol = :symbol")
+    void delete(String symbol);
+
+    @Transaction
+    default void applyPriceUpdates(List<PriceUpdate> updates) {
+        for (PriceUpdate u : updates) {
+            if (updatePriceAndStats(u.symbol(), u.price(), u.updatedAt(), u.change24hPercent(), u.low24h(), u.high24h()) == 0) {
+                insertForFavourite(u.symbol(), u.price(), u.updatedAt(), u.change24hPercent(), u.low24h(), u.high24h());
+            }
+        }
+    }
+
+    /**
+     * Stores 24h stats recomputed after an OHLC refresh, creating an empty price row if no tick has arrived yet.
+     */
+    @Transaction
+    default void applyOhlcStats(String symbol, Double changePercent, Double low, Double high) {
+        if (updateStats(symbol, changePercent, low, high) == 0) {
+            insertForFavourite(symbol, 0d, 0L, changePercent, low, high);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.f119589.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the persisted Kraken AssetPairs catalog (already trimmed and prettified for the Markets list).
+ */
+@Entity(tableName = "asset_pairs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetPair {
+
+    @PrimaryKey
+    @NonNull
+    private String wsName;
+
+    private String resultKey; // Kraken's canonical key, e.g. "XXBTZUSD"
+
+    private String altName;
+
+    private String display;
+
+    private String base;
+
+    private String quote;
+}
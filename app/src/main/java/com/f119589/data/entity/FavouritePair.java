@@ -12,8 +12,7 @@ import lombok.NoArgsConstructor;
 @Entity(
         tableName = "favorites",
         indices = {
-                @Index(value = {"displayName"}),
-                @Index(value = {"lastUpdated"})
+                @Index(value = {"displayName"})
         }
 )
 @Data
@@ -27,18 +26,17 @@ public class FavouritePair {
 
     private String displayName;
 
-    private double lastPrice;
-
-    private long lastUpdated;
-
     /**
-     * Cached 24h OHLC data for the sparkline, stored as a compact JSON string.
+     * Cached 24h OHLC closes for the sparkline, in the binary format of OhlcSeriesCodec.
      */
-    private String ohlc24hJson;
+    private byte[] ohlc24hBlob;
 
     private long ohlc24hUpdatedAt;
 
-    private Double change24hPercent;
-
     private Double ohlc24hFirstClose;
+
+    /**
+     * Kraken OHLC "last" cursor of the cached series; the next refresh only asks for newer candles.
+     */
+    private long ohlc24hCursor;
 }
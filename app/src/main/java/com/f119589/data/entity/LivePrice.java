@@ -0,0 +1,34 @@
+package com.f119589.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hot, frequently rewritten price columns of a favourite, kept out of {@link FavouritePair}
+ * so live ticks don't invalidate observers of the (much heavier) favourites table.
+ */
+@Entity(tableName = "live_prices")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LivePrice {
+
+    @PrimaryKey
+    @NonNull
+    private String symbol; // same wsName key as FavouritePair.symbol
+
+    private double lastPrice;
+
+    private long lastUpdated;
+
+    private Double change24hPercent;
+
+    private Double low24h;
+
+    private Double high24h;
+}
@@ -0,0 +1,27 @@
+package com.f119589.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bookkeeping for a remotely refreshed dataset: when it was last validated and the validator to revalidate with.
+ */
+@Entity(tableName = "sync_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncState {
+
+    @PrimaryKey
+    @NonNull
+    private String key;
+
+    private long validatedAt;
+
+    private String etag;
+}
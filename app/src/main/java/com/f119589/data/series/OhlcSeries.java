@@ -0,0 +1,124 @@
+package com.f119589.data.series;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * Growable (timestamp, close) series backed by primitive arrays, ordered by timestamp.
+ * Used to merge incremental OHLC pages into the cached 24h sparkline series.
+ */
+public final class OhlcSeries {
+
+    private long[] times;
+    private double[] closes;
+    private int size;
+
+    public OhlcSeries() {
+        this(300);
+    }
+
+    public OhlcSeries(int capacity) {
+        this.times = new long[Math.max(1, capacity)];
+        this.closes = new double[Math.max(1, capacity)];
+    }
+
+    /**
+     * Wraps already filled arrays without copying (used by {@link OhlcSeriesCodec#decode}).
+     */
+    OhlcSeries(long[] times, double[] closes, int size) {
+        this.times = times;
+        this.closes = closes;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long timeAt(int i) {
+        return times[i];
+    }
+
+    public double closeAt(int i) {
+        return closes[i];
+    }
+
+    public double firstClose() {
+        return size > 0 ? closes[0] : Double.NaN;
+    }
+
+    public double lastClose() {
+        return size > 0 ? closes[size - 1] : Double.NaN;
+    }
+
+    public void add(long timeSec, double close) {
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            closes = Arrays.copyOf(closes, capacity);
+        }
+        times[size] = timeSec;
+        closes[size] = close;
+        size++;
+    }
+
+    /**
+     * Replaces every point at or after the first timestamp of {@code newer} (this drops the
+     * still-forming last candle and any overlap) and appends {@code newer}.
+     */
+    public void mergeNewer(OhlcSeries newer) {
+        if (newer.isEmpty()) return;
+        long from = newer.times[0];
+        int keep = size;
+        while (keep > 0 && times[keep - 1] >= from) keep--;
+        size = keep;
+        for (int i = 0; i < newer.size; i++) {
+            add(newer.times[i], newer.closes[i]);
+        }
+    }
+
+    /**
+     * Drops points older than {@code minTimeSec}.
+     */
+    public void trimBefore(long minTimeSec) {
+        int drop = 0;
+        while (drop < size && times[drop] < minTimeSec) drop++;
+        if (drop == 0) return;
+        System.arraycopy(times, drop, times, 0, size - drop);
+        System.arraycopy(closes, drop, closes, 0, size - drop);
+        size -= drop;
+    }
+
+    /**
+     * Reads the legacy compact [[tsSec, close], ...] JSON format (only needed to migrate old rows).
+     */
+    public static OhlcSeries fromCompactJson(String json) throws IOException {
+        OhlcSeries out = new OhlcSeries();
+        if (json == null || json.isEmpty()) return out;
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                long t = reader.nextLong();
+                double close = reader.nextDouble();
+                while (reader.hasNext()) reader.skipValue();
+                reader.endArray();
+                out.add(t, close);
+            }
+            reader.endArray();
+        }
+        return out;
+    }
+}
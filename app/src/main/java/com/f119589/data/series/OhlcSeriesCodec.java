@@ -0,0 +1,249 @@
+package com.f119589.data.series;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary format for the cached 24h OHLC close series (stored in {@code favorites.ohlc24hBlob}).
+ * <pre>
+ * byte    version (1)
+ * byte    close encoding: 0 = scaled integers, 1 = raw IEEE-754 doubles
+ * varint  n
+ * -- if n > 0 --
+ * varint  base timestamp (sec), then n-1 zigzag varint deltas
+ * scaled: byte decimal scale, zigzag varint first scaled close, then n-1 zigzag varint deltas
+ * raw:    n x 8 bytes big-endian doubles
+ * </pre>
+ * Five-minute candles give 2-byte time deltas and closes usually fit in 1-3 bytes, so a 24h series is
+ * a fraction of the equivalent JSON text. Scaled integers are only used when every close round-trips
+ * exactly at some scale &lt;= {@link #MAX_SCALE}; otherwise the raw encoding keeps the codec lossless.
+ */
+public final class OhlcSeriesCodec {
+
+    private OhlcSeriesCodec() {
+        // Utility class - prevent instantiation
+    }
+
+    private static final byte VERSION = 1;
+    private static final byte CLOSES_SCALED = 0;
+    private static final byte CLOSES_RAW = 1;
+    private static final int MAX_SCALE = 8;
+    private static final double MAX_SCALED_MAGNITUDE = 1L << 52;
+
+    public static byte[] encode(OhlcSeries series) {
+        int n = series.size();
+        Sink out = new Sink(8 + n * 6);
+        out.put(VERSION);
+
+        int scale = n > 0 ? findScale(series) : 0;
+        out.put(scale >= 0 ? CLOSES_SCALED : CLOSES_RAW);
+        out.putVarint(n);
+        if (n == 0) return out.toByteArray();
+
+        long prevTime = series.timeAt(0);
+        out.putVarint(prevTime);
+        for (int i = 1; i < n; i++) {
+            long t = series.timeAt(i);
+            out.putVarint(zigzag(t - prevTime));
+            prevTime = t;
+        }
+
+        if (scale >= 0) {
+            double factor = POW10[scale];
+            out.put((byte) scale);
+            long prev = 0;
+            for (int i = 0; i < n; i++) {
+                long scaled = (long) Math.rint(series.closeAt(i) * factor);
+                out.putVarint(zigzag(scaled - prev));
+                prev = scaled;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                out.putLong(Double.doubleToRawLongBits(series.closeAt(i)));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes straight into the primitive arrays of a new {@link OhlcSeries}, sized exactly.
+     */
+    public static OhlcSeries decode(@Nullable byte[] blob) {
+        Source in = open(blob);
+        if (in == null || in.n == 0) return new OhlcSeries();
+        int n = in.n;
+        long[] times = new long[n];
+        readTimes(in, times, n);
+        double[] closes = new double[n];
+        readCloses(in, n, closes, null);
+        return new OhlcSeries(times, closes, n);
+    }
+
+    /**
+     * Decodes only the closes into a float array (timestamps are skipped), for rendering.
+     */
+    public static float[] decodeCloses(@Nullable byte[] blob) {
+        Source in = open(blob);
+        if (in == null || in.n == 0) return new float[0];
+        int n = in.n;
+        readTimes(in, null, n);
+        float[] closes = new float[n];
+        readCloses(in, n, null, closes);
+        return closes;
+    }
+
+    // ---------------------------------------------------------------------
+    // Encoding helpers
+    // ---------------------------------------------------------------------
+
+    private static final double[] POW10 = new double[MAX_SCALE + 1];
+
+    static {
+        double p = 1d;
+        for (int i = 0; i <= MAX_SCALE; i++) {
+            POW10[i] = p;
+            p *= 10d;
+        }
+    }
+
+    /**
+     * Smallest decimal scale at which every close round-trips exactly, or -1 if there is none.
+     */
+    private static int findScale(OhlcSeries series) {
+        int scale = 0;
+        for (int i = 0; i < series.size(); i++) {
+            double c = series.closeAt(i);
+            if (Double.isNaN(c) || Double.isInfinite(c)) return -1;
+            while (!roundTrips(c, scale)) {
+                if (++scale > MAX_SCALE) return -1;
+            }
+        }
+        return scale;
+    }
+
+    private static boolean roundTrips(double value, int scale) {
+        double scaled = Math.rint(value * POW10[scale]);
+        return Math.abs(scaled) < MAX_SCALED_MAGNITUDE && scaled / POW10[scale] == value;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static final class Sink {
+        private byte[] buf;
+        private int pos;
+
+        Sink(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+
+        void put(byte b) {
+            ensure(1);
+            buf[pos++] = b;
+        }
+
+        void putVarint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void putLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Decoding helpers
+    // ---------------------------------------------------------------------
+
+    private static final class Source {
+        final byte[] buf;
+        int pos;
+        int n;
+        byte closeEncoding;
+
+        Source(byte[] buf) {
+            this.buf = buf;
+        }
+
+        long varint() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+                shift += 7;
+                if (shift > 63) throw new IllegalArgumentException("Malformed varint");
+            }
+        }
+
+        long longBits() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | (buf[pos++] & 0xFF);
+            }
+            return v;
+        }
+    }
+
+    @Nullable
+    private static Source open(@Nullable byte[] blob) {
+        if (blob == null || blob.length < 3) return null;
+        if (blob[0] != VERSION) throw new IllegalArgumentException("Unsupported OHLC blob version " + blob[0]);
+        Source in = new Source(blob);
+        in.pos = 1;
+        in.closeEncoding = blob[in.pos++];
+        in.n = (int) in.varint();
+        return in;
+    }
+
+    private static void readTimes(Source in, @Nullable long[] times, int n) {
+        long t = in.varint();
+        if (times != null) times[0] = t;
+        for (int i = 1; i < n; i++) {
+            t += unzigzag(in.varint());
+            if (times != null) times[i] = t;
+        }
+    }
+
+    private static void readCloses(Source in, int n, @Nullable double[] doubles, @Nullable float[] floats) {
+        if (in.closeEncoding == CLOSES_SCALED) {
+            double factor = POW10[in.buf[in.pos++]];
+            long scaled = 0;
+            for (int i = 0; i < n; i++) {
+                scaled += unzigzag(in.varint());
+                double v = scaled / factor;
+                if (doubles != null) doubles[i] = v;
+                if (floats != null) floats[i] = (float) v;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                double v = Double.longBitsToDouble(in.longBits());
+                if (doubles != null) doubles[i] = v;
+                if (floats != null) floats[i] = (float) v;
+            }
+        }
+    }
+}
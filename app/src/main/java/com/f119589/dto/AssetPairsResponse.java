@@ -1,17 +1,15 @@
 package com.f119589.dto;
 
-import com.google.gson.annotations.SerializedName;
+import com.f119589.data.client.AssetPairsResponseAdapter;
+import com.f119589.data.entity.AssetPair;
+import com.google.gson.annotations.JsonAdapter;
 
-import java.util.Map;
+import java.util.List;
 
-public record AssetPairsResponse(
-        @SerializedName("result") Map<String, AssetPairInfo> result
-) {
-    public record AssetPairInfo(
-            @SerializedName("altname") String altName,
-            @SerializedName("wsname") String wsName,
-            @SerializedName("base") String base,
-            @SerializedName("quote") String quote
-    ) {
-    }
+/**
+ * @param pairs catalog rows sorted by quote, base, then wsName (null if the response had no result).
+ */
+@JsonAdapter(AssetPairsResponseAdapter.class)
+public record AssetPairsResponse(List<String> error,
+                                 List<AssetPair> pairs) {
 }
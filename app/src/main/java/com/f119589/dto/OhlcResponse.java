@@ -1,9 +1,17 @@
 package com.f119589.dto;
 
-import com.google.gson.JsonObject;
-import com.google.gson.annotations.SerializedName;
+import com.f119589.data.client.OhlcResponseAdapter;
+import com.f119589.data.series.OhlcSeries;
+import com.google.gson.annotations.JsonAdapter;
 
-public record OhlcResponse(
-        @SerializedName("result") JsonObject result
-) {
+import java.util.List;
+
+/**
+ * @param series rows of the response (null if the result had none), already reduced to time/close.
+ * @param last   Kraken's "last" cursor for the next incremental request.
+ */
+@JsonAdapter(OhlcResponseAdapter.class)
+public record OhlcResponse(List<String> error,
+                           OhlcSeries series,
+                           long last) {
 }
@@ -0,0 +1,12 @@
+package com.f119589.dto;
+
+/**
+ * One coalesced live price write. Null 24h fields leave the stored values untouched.
+ */
+public record PriceUpdate(String symbol,
+                          double price,
+                          long updatedAt,
+                          Double change24hPercent,
+                          Double low24h,
+                          Double high24h) {
+}
@@ -3,6 +3,6 @@ package com.f119589.dto;
 import lombok.Builder;
 
 @Builder
-public record TickEvent(String symbol, double price) {
+public record TickEvent(int symbolId, String symbol, double price) {
 }
 
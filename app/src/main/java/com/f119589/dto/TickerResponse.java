@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 public record TickerResponse(
+        @SerializedName("error") List<String> error,
         @SerializedName("result") Map<String, TickerInfo> result
 ) {
     public record TickerInfo(
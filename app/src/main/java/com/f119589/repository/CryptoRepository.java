@@ -4,37 +4,46 @@ import android.content.Context;
 import android.content.Intent;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.f119589.data.client.CoinGeckoClient;
 import com.f119589.data.client.KrakenClient;
+import com.f119589.data.client.NetworkCore;
 import com.f119589.data.db.AppDb;
+import com.f119589.data.db.AssetPairDao;
 import com.f119589.data.db.FavouritePairDao;
+import com.f119589.data.db.LivePriceDao;
+import com.f119589.data.entity.AssetPair;
 import com.f119589.data.entity.FavouritePair;
+import com.f119589.data.entity.LivePrice;
+import com.f119589.data.entity.SyncState;
+import com.f119589.data.series.OhlcSeries;
+import com.f119589.data.series.OhlcSeriesCodec;
 import com.f119589.dto.AssetPairDto;
 import com.f119589.dto.AssetPairsResponse;
 import com.f119589.dto.MarketSnapshotDto;
 import com.f119589.dto.MarketSnapshotResponse;
 import com.f119589.dto.OhlcResponse;
-import com.f119589.dto.TickEvent;
+import com.f119589.dto.PriceUpdate;
 import com.f119589.dto.TickerResponse;
 import com.f119589.service.KrakenWebSocketService;
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 
 import java.io.IOException;
-import java.util.Comparator;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import okhttp3.OkHttpClient;
 import retrofit2.Response;
@@ -46,26 +55,66 @@ public class CryptoRepository {
     private static final String TAG = "CryptoRepository";
     private static final String USD_COINGECKO_NAME = "usd";
     private static final String BTC_COINGECKO_NAME = "btc";
+    private static final long DEFAULT_PRICE_FLUSH_INTERVAL_MS = 1_000L;
+    // Keeps each batched Ticker request URL well below common server/proxy limits
+    private static final int MAX_TICKER_PAIRS_CHARS = 1_500;
+    private static final String CATALOG_SYNC_KEY = "asset_pairs";
+    private static final long CATALOG_TTL_MS = TimeUnit.HOURS.toMillis(12);
+
+    // Single-flight keys and how long each stays quiet after a completed call
+    private static final String FLIGHT_ASSET_PAIRS = "AssetPairs";
+    private static final String FLIGHT_GLOBAL = "Global";
+    private static final String FLIGHT_OHLC_PREFIX = "OHLC:";
+    private static final String FLIGHT_TICKER_PREFIX = "Ticker:";
+    private static final long ASSET_PAIRS_COOLDOWN_MS = TimeUnit.SECONDS.toMillis(60);
+    private static final long GLOBAL_COOLDOWN_MS = TimeUnit.SECONDS.toMillis(60);
+    private static final long OHLC_COOLDOWN_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final long TICKER_COOLDOWN_MS = TimeUnit.SECONDS.toMillis(2);
+    private static final int MAX_QUEUED_NETWORK_TASKS = 128;
 
     private static volatile CryptoRepository INSTANCE;
     private final KrakenClient api;
     private final CoinGeckoClient geckoApi;
     private final FavouritePairDao favoriteDao;
-    private final ExecutorService networkIo = Executors.newFixedThreadPool(4);
-    private final ExecutorService dbIo = Executors.newSingleThreadExecutor();
+    private final LivePriceDao livePriceDao;
+    private final AssetPairDao assetPairDao;
+    // Network work by priority class; queued duplicates are coalesced by key
+    private final TaskScheduler networkIo = new TaskScheduler("net", 4, MAX_QUEUED_NETWORK_TASKS);
+    private final ScheduledExecutorService dbIo = Executors.newSingleThreadScheduledExecutor();
     private final Gson gson;
 
     private final MutableLiveData<List<AssetPairDto>> marketsLive = new MutableLiveData<>();
 
-    private final MutableLiveData<TickEvent> tickEventsLive = new MutableLiveData<>();
+    // Dense int ids for pair symbols; the tick pipeline indexes arrays by them
+    private final SymbolRegistry symbols = new SymbolRegistry();
+    private final TickBus tickBus = new TickBus(symbols);
     private final MutableLiveData<MarketSnapshotDto> marketSnapshotLive = new MutableLiveData<>();
 
+    // Live prices are buffered here and persisted in batches on dbIo
+    private final LivePriceWriteBehind livePrices = new LivePriceWriteBehind();
+
+    // Rolling 24h window per favourite's symbol id: OHLC-seeded, tick-fed; source of change %, low and high.
+    // Grown (copied) under windowsLock; slots are read without locking.
+    private final Object windowsLock = new Object();
+    private volatile AtomicReferenceArray<RollingWindow> windows = new AtomicReferenceArray<>(256);
+    private volatile long priceFlushIntervalMs = DEFAULT_PRICE_FLUSH_INTERVAL_MS;
+
     // Map wsName -> altName (needed because REST uses altName, while WS uses wsName)
     private final Map<String, String> wsToAltMap = new ConcurrentHashMap<>();
+    // Map Ticker/AssetPairs result key (canonical name, e.g. "XXBTZUSD") and alt name -> wsName
+    private final Map<String, String> resultKeyToWsMap = new ConcurrentHashMap<>();
+    // Both mapping tables above have been filled from the persisted catalog (if there was one)
+    private volatile boolean catalogLoadedFromDisk;
+    // markets() holds a catalog; later emissions only happen when it changes
+    private volatile boolean catalogPublished;
+
+    // Coalesces duplicate REST calls across screens and threads
+    private final SingleFlight flights = new SingleFlight();
 
     private CryptoRepository(Context context) {
         Context appContext = context.getApplicationContext();
-        OkHttpClient ok = new OkHttpClient.Builder().build();
+        // Shared with the WebSocket service: one pool, HTTP cache and per-host rate limits
+        OkHttpClient ok = NetworkCore.get(appContext).client();
         this.gson = new Gson();
 
         Retrofit retrofit = new Retrofit.Builder()
@@ -82,31 +131,56 @@ public class CryptoRepository {
 
         this.api = retrofit.create(KrakenClient.class);
         this.geckoApi = geckoRetrofit.create(CoinGeckoClient.class);
-        this.favoriteDao = AppDb.get(appContext).favoritePairDao();
+        AppDb db = AppDb.get(appContext);
+        this.favoriteDao = db.favoritePairDao();
+        this.livePriceDao = db.livePriceDao();
+        this.assetPairDao = db.assetPairDao();
     }
 
     private interface ThrowingRunnable {
         void run() throws Exception;
     }
 
-    private void runNetwork(String label, ThrowingRunnable task) {
-        networkIo.submit(() -> {
-            try {
-                task.run();
-            } catch (Exception ex) {
-                Log.e(TAG, label + " error", ex);
-            }
-        });
+    private TaskScheduler.Handle runNetwork(TaskScheduler.Priority priority, String label, ThrowingRunnable task) {
+        return networkIo.submit(priority, null, () -> runNetworkTask(label, task));
+    }
+
+    /**
+     * Like {@link #runNetwork}, but coalesced by {@code key}: a duplicate still queued is merged (and promoted
+     * to the higher priority), one in flight is joined, and a recently completed one is skipped during its cooldown.
+     */
+    private TaskScheduler.Handle runNetworkOnce(String key, long cooldownMs, TaskScheduler.Priority priority,
+                                                String label, ThrowingRunnable task) {
+        return networkIo.submit(priority, key, () -> runNetworkTask(label, () -> flights.join(key, cooldownMs, () -> {
+            task.run();
+            return null;
+        })));
+    }
+
+    private static void runNetworkTask(String label, ThrowingRunnable task) {
+        try {
+            task.run();
+        } catch (InterruptedIOException | InterruptedException ex) {
+            Log.d(TAG, label + " cancelled");
+        } catch (Exception ex) {
+            Log.e(TAG, label + " error", ex);
+        }
+    }
+
+    public TaskScheduler.Stats networkStats() {
+        return networkIo.stats();
     }
 
     private void runDb(String label, ThrowingRunnable task) {
-        dbIo.submit(() -> {
-            try {
-                task.run();
-            } catch (Exception ex) {
-                Log.e(TAG, label + " error", ex);
-            }
-        });
+        dbIo.submit(() -> runDbTask(label, task));
+    }
+
+    private static void runDbTask(String label, ThrowingRunnable task) {
+        try {
+            task.run();
+        } catch (Exception ex) {
+            Log.e(TAG, label + " error", ex);
+        }
     }
 
     public static CryptoRepository get(Context ctx) {
@@ -128,41 +202,96 @@ public class CryptoRepository {
         return marketSnapshotLive;
     }
 
+    /**
+     * Stale-while-revalidate: publishes the persisted catalog right away, then revalidates it against
+     * Kraken only if it is older than {@link #CATALOG_TTL_MS}. {@link #markets()} emits again only when
+     * the catalog actually changed, so calling this on every view creation is cheap.
+     */
     public void refreshAssetPairs() {
-        runNetwork("refreshAssetPairs", () -> {
-            Response<AssetPairsResponse> response = api.getAssetPairs().execute();
-            AssetPairsResponse body = response.body();
-            if (!response.isSuccessful() || body == null || body.result() == null) {
-                Log.w(TAG, "Failed fetching asset pairs from Kraken");
-                return;
+        runNetwork(TaskScheduler.Priority.USER_VISIBLE, "refreshAssetPairs", () -> {
+            List<AssetPair> cached = loadCatalogFromDiskSync();
+            SyncState state = assetPairDao.findSyncState(CATALOG_SYNC_KEY);
+            boolean fresh = !cached.isEmpty() && state != null
+                    && System.currentTimeMillis() - state.getValidatedAt() < CATALOG_TTL_MS;
+            if (!fresh) {
+                revalidateCatalogShared(!cached.isEmpty() ? state : null);
+            }
+        });
+    }
+
+    /**
+     * Fills the symbol mappings from the persisted catalog (once) and publishes it if nothing was yet.
+     */
+    private List<AssetPair> loadCatalogFromDiskSync() {
+        List<AssetPair> rows = assetPairDao.getAllSync();
+        if (!catalogLoadedFromDisk) {
+            for (AssetPair row : rows) {
+                rememberPair(row);
             }
-            wsToAltMap.clear();
-            List<AssetPairDto> assetPairs = body.result()
-                    .values()
-                    .stream()
-                    .map(info -> {
-                        if (info == null) return null;
-                        String altName = info.altName();
-                        String wsName = info.wsName();
-                        if (altName == null || wsName == null) return null;
-                        String base = trimPrefix(info.base());
-                        String quote = trimPrefix(info.quote());
-                        String display = prettifyDisplay(base, quote);
-                        wsToAltMap.put(wsName, altName);
-                        return new AssetPairDto(wsName, altName, display, base, quote);
-                    })
-                    .filter(Objects::nonNull)
-                    .sorted(Comparator
-                            .comparing(AssetPairDto::quote)
-                            .thenComparing(AssetPairDto::base))
-                    .collect(Collectors.toList());
-
-            marketsLive.postValue(assetPairs);
+            catalogLoadedFromDisk = true;
+        }
+        if (!catalogPublished && !rows.isEmpty()) {
+            catalogPublished = true;
+            marketsLive.postValue(toDtos(rows));
+        }
+        return rows;
+    }
+
+    /**
+     * {@link #revalidateCatalogSync} through the single-flight layer, so concurrent misses share one download.
+     */
+    private void revalidateCatalogShared(SyncState previous) throws Exception {
+        flights.join(FLIGHT_ASSET_PAIRS, ASSET_PAIRS_COOLDOWN_MS, () -> {
+            revalidateCatalogSync(previous);
+            return null;
         });
     }
 
+    /**
+     * Downloads the catalog (conditionally if {@code previous} carries an ETag) and persists and publishes
+     * it only if it differs from what is stored.
+     */
+    private void revalidateCatalogSync(SyncState previous) throws IOException {
+        String etag = previous != null ? previous.getEtag() : null;
+        Response<AssetPairsResponse> response = api.getAssetPairs(etag).execute();
+        long now = System.currentTimeMillis();
+        if (response.code() == 304) {
+            assetPairDao.upsertSyncState(new SyncState(CATALOG_SYNC_KEY, now, etag));
+            return;
+        }
+        AssetPairsResponse body = response.body();
+        if (!response.isSuccessful() || body == null || body.pairs() == null) {
+            Log.w(TAG, "Failed fetching asset pairs from Kraken" + (body != null ? ": " + body.error() : ""));
+            return;
+        }
+
+        // Already decoded into sorted catalog rows by AssetPairsResponseAdapter
+        List<AssetPair> fresh = body.pairs();
+        for (AssetPair pair : fresh) {
+            rememberPair(pair);
+        }
+
+        if (!fresh.equals(assetPairDao.getAllSync())) {
+            assetPairDao.replaceAll(fresh);
+            catalogPublished = true;
+            marketsLive.postValue(toDtos(fresh));
+        } else if (!catalogPublished) {
+            catalogPublished = true;
+            marketsLive.postValue(toDtos(fresh));
+        }
+        assetPairDao.upsertSyncState(new SyncState(CATALOG_SYNC_KEY, now, response.headers().get("ETag")));
+    }
+
+    private static List<AssetPairDto> toDtos(List<AssetPair> rows) {
+        List<AssetPairDto> out = new ArrayList<>(rows.size());
+        for (AssetPair row : rows) {
+            out.add(new AssetPairDto(row.getWsName(), row.getAltName(), row.getDisplay(), row.getBase(), row.getQuote()));
+        }
+        return out;
+    }
+
     public void refreshMarketSnapshot() {
-        runNetwork("refreshMarketSnapshot", () -> {
+        runNetworkOnce(FLIGHT_GLOBAL, GLOBAL_COOLDOWN_MS, TaskScheduler.Priority.USER_VISIBLE, "refreshMarketSnapshot", () -> {
             Response<MarketSnapshotResponse> response = geckoApi.getGlobal().execute();
             MarketSnapshotResponse body = response.body();
             if (!response.isSuccessful() || body == null) {
@@ -184,6 +313,13 @@ public class CryptoRepository {
         return favoriteDao.observeAll();
     }
 
+    /**
+     * Narrow observation path for live prices; only invalidated by price writes, never by favourites edits.
+     */
+    public LiveData<List<LivePrice>> livePrices() {
+        return livePriceDao.observeAll();
+    }
+
     public void addFavorite(Context context, AssetPairDto pair) {
         Context appContext = context.getApplicationContext();
         dbIo.submit(() -> {
@@ -194,7 +330,7 @@ public class CryptoRepository {
             e.setSymbol(pair.dbSymbol());
             e.setDisplayName(pair.display());
             favoriteDao.upsert(e);
-            notifyWsSubscriptionsChanged(appContext);
+            notifyWsSubscriptionsChanged(appContext, KrakenWebSocketService.EXTRA_ADDED_PAIR, pair.dbSymbol());
         });
     }
 
@@ -204,17 +340,22 @@ public class CryptoRepository {
             FavouritePair e = favoriteDao.findOneSync(wsSymbol);
             if (e != null) {
                 favoriteDao.delete(e);
-                notifyWsSubscriptionsChanged(appContext);
+                livePriceDao.delete(wsSymbol);
+                removeWindow(wsSymbol);
+                flights.forget(FLIGHT_OHLC_PREFIX + wsSymbol);
+                notifyWsSubscriptionsChanged(appContext, KrakenWebSocketService.EXTRA_REMOVED_PAIR, wsSymbol);
             }
         });
     }
 
     /**
-     * Fetches approx. 24h worth of OHLC candles (using 5-min interval),
-     * compacts to [ [tsSec, close], ... ] JSON array, and stores to DB.
+     * Keeps approx. 24h worth of OHLC closes (5-min interval) cached as an {@link OhlcSeriesCodec} blob.
+     * After the first full fetch only candles newer than the stored Kraken "last" cursor are requested
+     * and merged into the cached series (replacing the still-forming last candle); older points are trimmed.
+     * Duplicate requests for a symbol (list staleness check, detail screen) are coalesced and cool down for 30s.
      */
-    public void fetchAndCacheOhlc24h(String wsSymbol) {
-        runNetwork("fetchAndCacheOhlc24h for " + wsSymbol, () -> {
+    public TaskScheduler.Handle fetchAndCacheOhlc24h(String wsSymbol, TaskScheduler.Priority priority) {
+        return runNetworkOnce(FLIGHT_OHLC_PREFIX + wsSymbol, OHLC_COOLDOWN_MS, priority, "fetchAndCacheOhlc24h for " + wsSymbol, () -> {
             FavouritePair favourite = favoriteDao.findOneSync(wsSymbol);
             if (favourite == null) {
                 return;
@@ -226,139 +367,270 @@ public class CryptoRepository {
                 return;
             }
 
-            // 5-min bars over ~24h => ~288 points; use 'since' = now - 24h
+            // 5-min bars over ~24h => ~288 points
             long nowSec = System.currentTimeMillis() / 1000L;
-            long since = nowSec - 24 * 60 * 60;
+            long windowStart = nowSec - 24 * 60 * 60;
+
+            OhlcSeries cached = OhlcSeriesCodec.decode(favourite.getOhlc24hBlob());
+            long cursor = favourite.getOhlc24hCursor();
+            boolean incremental = !cached.isEmpty() && cursor > windowStart;
+            long since = incremental ? cursor : windowStart;
 
             Response<OhlcResponse> r = api.getOhlc(alt, 5, since).execute();
             OhlcResponse body = r.body();
-            if (!r.isSuccessful() || body == null) return;
-
-            JsonObject result = body.result();
-            JsonElement pairEl = result.get(alt);
-
-            double firstClose = Double.NaN;
-            double lastClose = Double.NaN;
-            JsonArray compact = new JsonArray();
-            for (JsonElement rowEl : pairEl.getAsJsonArray()) {
-                if (!rowEl.isJsonArray()) continue;
-                JsonArray row = rowEl.getAsJsonArray();
-                if (row.size() < 5) continue;
-                long t = row.get(0).getAsLong();
-                double close = row.get(4).getAsDouble();
-                if (Double.isNaN(firstClose)) firstClose = close;
-                lastClose = close;
-                JsonArray pt = new JsonArray();
-                pt.add(t);
-                pt.add(close);
-                compact.add(pt);
+            // Rows arrive as primitive time/close pairs (OhlcResponseAdapter), no JSON tree
+            if (!r.isSuccessful() || body == null || body.series() == null) return;
+            OhlcSeries fresh = body.series();
+            long nextCursor = body.last();
+
+            OhlcSeries series = fresh;
+            if (incremental) {
+                cached.mergeNewer(fresh);
+                series = cached;
             }
+            series.trimBefore(windowStart);
 
-            Double change24hPercent = null;
-            if (!Double.isNaN(firstClose) && !Double.isNaN(lastClose) && firstClose != 0d) {
-                change24hPercent = ((lastClose - firstClose) / firstClose) * 100.0;
-            }
-
-            String json = gson.toJson(compact);
+            double firstClose = series.firstClose();
+            byte[] blob = OhlcSeriesCodec.encode(series);
             Double firstCloseValue = Double.isNaN(firstClose) ? null : firstClose;
-            favoriteDao.updateOhlcCache(wsSymbol, json, System.currentTimeMillis(), change24hPercent, firstCloseValue);
+            favoriteDao.updateOhlcCache(wsSymbol, blob, System.currentTimeMillis(), firstCloseValue, nextCursor);
+
+            RollingWindow window = watchedWindow(symbols.idOf(wsSymbol));
+            window.seed(series, System.currentTimeMillis());
+            livePriceDao.applyOhlcStats(wsSymbol, window.changePercent(window.last()),
+                    nullIfNaN(window.low()), nullIfNaN(window.high()));
         });
     }
 
-    public void updateLivePrice(String wsSymbol, double price) {
-        runDb("updateLivePrice for " + wsSymbol, () -> {
-            FavouritePair favourite = favoriteDao.findOneSync(wsSymbol);
-            if (favourite == null) return;
+    /**
+     * Records the latest price in memory; it is written to the DB on the next flush
+     * together with every other symbol that ticked in the meantime.
+     *
+     * @param symbolId id from {@link #symbols()}.
+     */
+    public void updateLivePrice(int symbolId, double price) {
+        long now = System.currentTimeMillis();
+        RollingWindow window = existingWindow(symbolId);
+        if (window != null) window.add(now, price);
+        if (livePrices.record(symbolId, price, now)) {
+            dbIo.schedule(() -> runDbTask("flushLivePrices", this::flushLivePricesSync),
+                    priceFlushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
 
-            Double baseline = favourite.getOhlc24hFirstClose();
-            Double change = favourite.getChange24hPercent();
-            if (baseline != null && baseline != 0d) {
-                change = ((price - baseline) / baseline) * 100.0;
-            }
+    /**
+     * Persists pending live prices now, e.g. when the price service is shutting down.
+     */
+    public void flushLivePrices() {
+        runDb("flushLivePrices", this::flushLivePricesSync);
+    }
 
-            favoriteDao.updatePriceAndChange(wsSymbol, price, System.currentTimeMillis(), change);
-        });
+    public void setPriceFlushIntervalMs(long intervalMs) {
+        this.priceFlushIntervalMs = Math.max(0L, intervalMs);
     }
 
-    public void postTickEvent(String wsSymbol, double price) {
-        tickEventsLive.postValue(new TickEvent(wsSymbol, price));
+    private void flushLivePricesSync() {
+        List<PriceUpdate> updates = livePrices.drain((symbolId, price, updatedAt) -> {
+            // Persistence edge: back to the wsName
+            String symbol = symbols.symbol(symbolId);
+            RollingWindow window = existingWindow(symbolId);
+            if (window == null) {
+                // First price since process start, or a pair that isn't watched (e.g. a Markets snapshot).
+                // Only favourites get a window, seeded once from the cached OHLC series.
+                FavouritePair favourite = favoriteDao.findOneSync(symbol);
+                if (favourite == null) return new PriceUpdate(symbol, price, updatedAt, null, null, null);
+                window = watchedWindow(symbolId);
+                if (!window.isSeeded() && favourite.getOhlc24hBlob() != null) {
+                    window.seed(OhlcSeriesCodec.decode(favourite.getOhlc24hBlob()), System.currentTimeMillis());
+                }
+                window.add(updatedAt, price);
+            }
+            return new PriceUpdate(symbol, price, updatedAt, window.changePercent(price),
+                    nullIfNaN(window.low()), nullIfNaN(window.high()));
+        });
+        if (updates.isEmpty()) return;
+        livePriceDao.applyPriceUpdates(updates);
     }
 
-    public LiveData<TickEvent> tickEvents() {
-        return tickEventsLive;
+    @Nullable
+    private RollingWindow existingWindow(int symbolId) {
+        AtomicReferenceArray<RollingWindow> table = windows;
+        return symbolId < table.length() ? table.get(symbolId) : null;
     }
 
-    public void refreshTickerSnapshot(String wsSymbol) {
-        runNetwork("refreshTickerSnapshot for " + wsSymbol, () -> {
-            String alt = resolveAltSymbol(wsSymbol);
-            if (alt == null) {
-                Log.w(TAG, "refreshTickerSnapshot: missing alt name for " + wsSymbol);
-                return;
+    /**
+     * Window of a favourite, created on first use. Callers must have checked the pair is a favourite.
+     */
+    private RollingWindow watchedWindow(int symbolId) {
+        RollingWindow existing = existingWindow(symbolId);
+        if (existing != null) return existing;
+        synchronized (windowsLock) {
+            AtomicReferenceArray<RollingWindow> table = windows;
+            if (symbolId >= table.length()) {
+                AtomicReferenceArray<RollingWindow> grown =
+                        new AtomicReferenceArray<>(Math.max(symbolId + 1, table.length() * 2));
+                for (int i = 0; i < table.length(); i++) grown.set(i, table.get(i));
+                windows = table = grown;
             }
-            Response<TickerResponse> r = api.getTicker(alt).execute();
-            TickerResponse body = r.body();
-            if (!r.isSuccessful() || body == null) return;
+            RollingWindow window = table.get(symbolId);
+            if (window == null) {
+                window = new RollingWindow();
+                table.set(symbolId, window);
+            }
+            return window;
+        }
+    }
+
+    /**
+     * Drops the window of a removed favourite; if it is added again, the window is re-seeded from scratch.
+     */
+    private void removeWindow(String wsSymbol) {
+        int id = symbols.find(wsSymbol);
+        if (id == SymbolRegistry.UNKNOWN) return;
+        synchronized (windowsLock) {
+            if (id < windows.length()) windows.set(id, null);
+        }
+    }
 
-            Map<String, TickerResponse.TickerInfo> result = body.result();
-            // Ticker result key is alt name. Inside, "c" is last trade price [<price>, <lot volume>].
-            TickerResponse.TickerInfo pairObj = result.get(alt);
-            if (pairObj == null || pairObj.lastTradeClose() == null || pairObj.lastTradeClose().isEmpty()) return;
+    private static Double nullIfNaN(double v) {
+        return Double.isNaN(v) ? null : v;
+    }
 
-            double last = Double.parseDouble(pairObj.lastTradeClose().getFirst());
-            updateLivePrice(wsSymbol, last);
-        });
+    public void postTickEvent(int symbolId, double price) {
+        tickBus.publish(symbolId, price);
+    }
+
+    public SymbolRegistry symbols() {
+        return symbols;
+    }
+
+    public TickBus ticks() {
+        return tickBus;
+    }
+
+    public TaskScheduler.Handle refreshTickerSnapshot(String wsSymbol) {
+        return refreshTickerSnapshots(Collections.singletonList(wsSymbol), TaskScheduler.Priority.USER_VISIBLE);
     }
 
     /**
-     * Kraken bases/quotes sometimes include prefixes like 'X'/'Z' (e.g., "XXBT","ZUSD"). Strip leading non-letters.
+     * Fetches last prices for all {@code wsSymbols} with as few Ticker requests as possible
+     * (comma-separated pair lists) and persists them as one price update batch.
      */
-    private static String trimPrefix(String v) {
-        if (v == null) return null;
-        return v.replaceAll("^[^A-Z]*", "");
+    public TaskScheduler.Handle refreshTickerSnapshots(Collection<String> wsSymbols, TaskScheduler.Priority priority) {
+        List<String> symbols = new ArrayList<>(wsSymbols);
+        Collections.sort(symbols);
+        return runNetworkOnce(FLIGHT_TICKER_PREFIX + String.join(",", symbols), TICKER_COOLDOWN_MS, priority,
+                "refreshTickerSnapshots", () -> fetchTickerSnapshotsSync(symbols));
+    }
+
+    private void fetchTickerSnapshotsSync(List<String> wsSymbols) throws Exception {
+        if (wsSymbols.isEmpty()) return;
+        List<String> alts = resolveAltSymbols(wsSymbols);
+
+        Map<String, Double> prices = new HashMap<>();
+        for (String pairList : chunkPairLists(alts, MAX_TICKER_PAIRS_CHARS)) {
+            Response<TickerResponse> r = api.getTicker(pairList).execute();
+            TickerResponse body = r.body();
+            if (!r.isSuccessful() || body == null || body.result() == null) {
+                Log.w(TAG, "Ticker snapshot failed for " + pairList
+                        + (body != null ? ": " + body.error() : ""));
+                continue;
+            }
+            // Result is keyed by Kraken's canonical pair name. Inside, "c" is last trade [<price>, <lot volume>].
+            for (Map.Entry<String, TickerResponse.TickerInfo> entry : body.result().entrySet()) {
+                String wsSymbol = resultKeyToWsMap.get(entry.getKey());
+                TickerResponse.TickerInfo info = entry.getValue();
+                if (wsSymbol == null || info == null || info.lastTradeClose() == null
+                        || info.lastTradeClose().isEmpty()) continue;
+                prices.put(wsSymbol, Double.parseDouble(info.lastTradeClose().getFirst()));
+            }
+        }
+        applySnapshotPrices(prices);
     }
 
     /**
-     * Prefer wsName for display; optionally map XBT->BTC if desired.
+     * Joins alt names into comma-separated lists, each at most {@code maxChars} long (a single
+     * over-long name still gets its own list).
      */
-    private static String prettifyDisplay(String base, String quote) {
-        String baseUi = mapTickerUi(base);
-        String quoteUi = mapTickerUi(quote);
-        return String.format(Locale.US, "%s/%s", baseUi, quoteUi);
+    private static List<String> chunkPairLists(List<String> alts, int maxChars) {
+        List<String> out = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (String alt : alts) {
+            if (sb.length() > 0 && sb.length() + 1 + alt.length() > maxChars) {
+                out.add(sb.toString());
+                sb.setLength(0);
+            }
+            if (sb.length() > 0) sb.append(',');
+            sb.append(alt);
+        }
+        if (sb.length() > 0) out.add(sb.toString());
+        return out;
     }
 
-    private static String mapTickerUi(String a) {
-        if (a == null) return "";
-        if (a.equalsIgnoreCase("XBT")) return "BTC";
-        if (a.equalsIgnoreCase("XDG")) return "DOGE";
-        if (a.equalsIgnoreCase("XETH")) return "ETH";
-        // Add more aliases if you wish; by default return original.
-        return a.toUpperCase(Locale.US);
+    /**
+     * Feeds snapshot prices through the same path as ticks, then flushes once so the whole
+     * snapshot lands in a single transaction.
+     */
+    private void applySnapshotPrices(Map<String, Double> prices) {
+        if (prices.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Double> e : prices.entrySet()) {
+            int id = symbols.idOf(e.getKey());
+            RollingWindow window = existingWindow(id);
+            if (window != null) window.add(now, e.getValue());
+            livePrices.record(id, e.getValue(), now);
+        }
+        runDb("flushLivePrices", this::flushLivePricesSync);
     }
 
-    private String resolveAltSymbol(String wsSymbol) throws IOException {
+    private String resolveAltSymbol(String wsSymbol) throws Exception {
         if (wsSymbol == null) return null;
-        String alt = wsToAltMap.get(wsSymbol);
-        if (alt != null) return alt;
+        List<String> alts = resolveAltSymbols(Collections.singletonList(wsSymbol));
+        return alts.isEmpty() ? null : alts.getFirst();
+    }
 
-        Response<AssetPairsResponse> response = api.getAssetPairs().execute();
-        AssetPairsResponse body = response.body();
-        if (!response.isSuccessful() || body == null || body.result() == null) return null;
-
-        for (AssetPairsResponse.AssetPairInfo info : body.result().values()) {
-            if (info == null) continue;
-            String altName = info.altName();
-            String wsName = info.wsName();
-            if (altName == null || wsName == null) continue;
-            wsToAltMap.put(wsName, altName);
-            if (wsSymbol.equals(wsName)) {
-                alt = altName;
+    /**
+     * Alt names for {@code wsSymbols}, in order, skipping unknown ones. Falls back to the persisted
+     * catalog first and downloads AssetPairs at most once.
+     */
+    private List<String> resolveAltSymbols(List<String> wsSymbols) throws Exception {
+        boolean fetched = false;
+        List<String> alts = new ArrayList<>(wsSymbols.size());
+        for (String wsSymbol : wsSymbols) {
+            String alt = wsToAltMap.get(wsSymbol);
+            if (alt == null && !catalogLoadedFromDisk) {
+                loadCatalogFromDiskSync();
+                alt = wsToAltMap.get(wsSymbol);
+            }
+            if (alt == null && !fetched) {
+                fetched = true;
+                revalidateCatalogShared(null);
+                alt = wsToAltMap.get(wsSymbol);
+            }
+            if (alt != null) {
+                alts.add(alt);
+            } else {
+                Log.w(TAG, "Missing alt name for " + wsSymbol);
             }
         }
-        return alt;
+        return alts;
     }
 
-    private void notifyWsSubscriptionsChanged(Context context) {
+    private void rememberPair(AssetPair pair) {
+        symbols.idOf(pair.getWsName());
+        wsToAltMap.put(pair.getWsName(), pair.getAltName());
+        resultKeyToWsMap.put(pair.getAltName(), pair.getWsName());
+        if (pair.getResultKey() != null) {
+            resultKeyToWsMap.put(pair.getResultKey(), pair.getWsName());
+        }
+    }
+
+    /**
+     * Tells the price service which pair changed, so it can diff just that pair instead of re-reading favourites.
+     */
+    private void notifyWsSubscriptionsChanged(Context context, String extra, String wsSymbol) {
         Intent intent = new Intent(KrakenWebSocketService.ACTION_REFRESH_SUBSCRIPTIONS);
+        intent.putExtra(extra, wsSymbol);
         intent.setPackage(context.getPackageName());
         context.sendBroadcast(intent);
     }
@@ -0,0 +1,60 @@
+package com.f119589.repository;
+
+import com.f119589.dto.PriceUpdate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write-behind buffer for live prices.
+ * <p>
+ * Ticks only overwrite the latest pending price per symbol id in memory; the repository drains the buffer
+ * on its flush interval and persists everything in one transaction. Two tables are swapped on drain, so
+ * producers keep recording while the drained one is converted.
+ */
+final class LivePriceWriteBehind {
+
+    interface UpdateFactory {
+        PriceUpdate create(int symbolId, double price, long updatedAt);
+    }
+
+    private TickTable pending = new TickTable();
+    // Only touched by the draining thread outside the lock
+    private TickTable draining = new TickTable();
+
+    /**
+     * @return true if the buffer was empty before this call, i.e. a flush needs to be scheduled.
+     */
+    synchronized boolean record(int symbolId, double price, long updatedAt) {
+        return pending.put(symbolId, price, updatedAt);
+    }
+
+    synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Removes the latest pending price per symbol and turns each into a {@link PriceUpdate}
+     * (outside the lock, so computing the 24h stats never blocks producers). Callers must not drain
+     * concurrently; the repository only drains on its single DB thread.
+     */
+    List<PriceUpdate> drain(UpdateFactory factory) {
+        TickTable batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return new ArrayList<>();
+            batch = pending;
+            pending = draining;
+            draining = batch;
+        }
+
+        List<PriceUpdate> out = new ArrayList<>(batch.size());
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                out.add(factory.create(batch.id(i), batch.price(i), batch.time(i)));
+            }
+        } finally {
+            batch.clear();
+        }
+        return out;
+    }
+}
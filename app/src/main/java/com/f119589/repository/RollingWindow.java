@@ -0,0 +1,220 @@
+package com.f119589.repository;
+
+import com.f119589.data.series.OhlcSeries;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sliding 24h price window for one symbol, seeded from the cached OHLC closes and fed by live ticks.
+ * <p>
+ * Samples are bucketed ({@link #BUCKET_MS}); a tick inside the newest bucket updates that bucket's
+ * close/low/high in place. Two monotonic deques over bucket lows and highs give the window low/high
+ * in O(1) (amortised O(1) per update), and the oldest bucket still inside the window is the moving
+ * baseline for the 24h change. The ring starts small and doubles as buckets arrive, so a window seeded from
+ * 5-minute candles holds a few hundred slots rather than a full day of 1-minute buckets. All methods are
+ * synchronized; windows are tiny and rarely contended.
+ */
+final class RollingWindow {
+
+    static final long WINDOW_MS = TimeUnit.HOURS.toMillis(24);
+    static final long BUCKET_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int INITIAL_CAPACITY = 32;
+    // 24h of 1-minute buckets, rounded up to a power of two
+    private static final int MAX_CAPACITY = 2048;
+
+    // Bucket ring, addressed by absolute sequence number (seq & mask); capacity is a power of two
+    private int mask = INITIAL_CAPACITY - 1;
+    private long[] times = new long[INITIAL_CAPACITY];
+    private double[] closes = new double[INITIAL_CAPACITY];
+    private double[] lows = new double[INITIAL_CAPACITY];
+    private double[] highs = new double[INITIAL_CAPACITY];
+    private long headSeq;
+    private long tailSeq; // exclusive
+
+    // Monotonic deques of bucket sequence numbers: lows increasing, highs decreasing
+    private long[] minDeque = new long[INITIAL_CAPACITY];
+    private int minHead;
+    private int minSize;
+    private long[] maxDeque = new long[INITIAL_CAPACITY];
+    private int maxHead;
+    private int maxSize;
+
+    private boolean seeded;
+
+    synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    synchronized void add(long timeMs, double price) {
+        evictOlderThan(timeMs - WINDOW_MS);
+        long last = tailSeq - 1;
+        if (tailSeq > headSeq && timeMs / BUCKET_MS == times[idx(last)] / BUCKET_MS) {
+            // Same bucket: the newest bucket is always the tail of both deques, so pop and re-push it
+            int i = idx(last);
+            closes[i] = price;
+            lows[i] = Math.min(lows[i], price);
+            highs[i] = Math.max(highs[i], price);
+            if (minSize > 0 && minDeque[(minHead + minSize - 1) & mask] == last) minSize--;
+            if (maxSize > 0 && maxDeque[(maxHead + maxSize - 1) & mask] == last) maxSize--;
+            pushDeques(last);
+            return;
+        }
+        if (timeMs < (tailSeq > headSeq ? times[idx(last)] : Long.MIN_VALUE)) {
+            return; // out-of-order sample older than the newest bucket
+        }
+        append(timeMs, price, price, price);
+    }
+
+    /**
+     * Rebuilds the window from the OHLC series, keeping live buckets newer than its last candle.
+     */
+    synchronized void seed(OhlcSeries series, long nowMs) {
+        long lastOhlcMs = series.isEmpty() ? Long.MIN_VALUE : TimeUnit.SECONDS.toMillis(series.timeAt(series.size() - 1));
+
+        int liveCount = 0;
+        long[] liveTimes = new long[(int) (tailSeq - headSeq)];
+        double[] liveCloses = new double[liveTimes.length];
+        double[] liveLows = new double[liveTimes.length];
+        double[] liveHighs = new double[liveTimes.length];
+        for (long s = headSeq; s < tailSeq; s++) {
+            int i = idx(s);
+            if (times[i] > lastOhlcMs) {
+                liveTimes[liveCount] = times[i];
+                liveCloses[liveCount] = closes[i];
+                liveLows[liveCount] = lows[i];
+                liveHighs[liveCount] = highs[i];
+                liveCount++;
+            }
+        }
+
+        headSeq = tailSeq = 0;
+        minHead = minSize = maxHead = maxSize = 0;
+        long cutoff = nowMs - WINDOW_MS;
+        for (int i = 0; i < series.size(); i++) {
+            long t = TimeUnit.SECONDS.toMillis(series.timeAt(i));
+            if (t < cutoff) continue;
+            double close = series.closeAt(i);
+            append(t, close, close, close);
+        }
+        for (int i = 0; i < liveCount; i++) {
+            append(liveTimes[i], liveCloses[i], liveLows[i], liveHighs[i]);
+        }
+        evictOlderThan(cutoff);
+        seeded = true;
+    }
+
+    synchronized double low() {
+        return minSize > 0 ? lows[idx(minDeque[minHead])] : Double.NaN;
+    }
+
+    synchronized double high() {
+        return maxSize > 0 ? highs[idx(maxDeque[maxHead])] : Double.NaN;
+    }
+
+    /**
+     * Close of the newest bucket (the latest tick, or the last candle right after seeding).
+     */
+    synchronized double last() {
+        return tailSeq > headSeq ? closes[idx(tailSeq - 1)] : Double.NaN;
+    }
+
+    /**
+     * Close of the oldest bucket still inside the window.
+     */
+    synchronized double baseline() {
+        return tailSeq > headSeq ? closes[idx(headSeq)] : Double.NaN;
+    }
+
+    /**
+     * 24h change of {@code price} against the moving baseline, or null until the window is seeded.
+     */
+    synchronized Double changePercent(double price) {
+        if (!seeded) return null;
+        double base = baseline();
+        if (Double.isNaN(base) || base == 0d) return null;
+        return ((price - base) / base) * 100.0;
+    }
+
+    private void append(long timeMs, double close, double low, double high) {
+        if (tailSeq - headSeq == mask + 1) {
+            if (mask + 1 < MAX_CAPACITY) {
+                grow();
+            } else {
+                evictHead();
+            }
+        }
+        long seq = tailSeq++;
+        int i = idx(seq);
+        times[i] = timeMs;
+        closes[i] = close;
+        lows[i] = low;
+        highs[i] = high;
+        pushDeques(seq);
+    }
+
+    private void pushDeques(long seq) {
+        int i = idx(seq);
+        while (minSize > 0 && lows[idx(minDeque[(minHead + minSize - 1) & mask])] >= lows[i]) minSize--;
+        minDeque[(minHead + minSize) & mask] = seq;
+        minSize++;
+        while (maxSize > 0 && highs[idx(maxDeque[(maxHead + maxSize - 1) & mask])] <= highs[i]) maxSize--;
+        maxDeque[(maxHead + maxSize) & mask] = seq;
+        maxSize++;
+    }
+
+    /**
+     * Doubles the ring; buckets keep their sequence numbers and the deques are unrolled to start at 0.
+     */
+    private void grow() {
+        int capacity = (mask + 1) * 2;
+        int newMask = capacity - 1;
+        long[] newTimes = new long[capacity];
+        double[] newCloses = new double[capacity];
+        double[] newLows = new double[capacity];
+        double[] newHighs = new double[capacity];
+        for (long s = headSeq; s < tailSeq; s++) {
+            int from = idx(s);
+            int to = (int) (s & newMask);
+            newTimes[to] = times[from];
+            newCloses[to] = closes[from];
+            newLows[to] = lows[from];
+            newHighs[to] = highs[from];
+        }
+        long[] newMin = new long[capacity];
+        for (int k = 0; k < minSize; k++) newMin[k] = minDeque[(minHead + k) & mask];
+        long[] newMax = new long[capacity];
+        for (int k = 0; k < maxSize; k++) newMax[k] = maxDeque[(maxHead + k) & mask];
+
+        times = newTimes;
+        closes = newCloses;
+        lows = newLows;
+        highs = newHighs;
+        minDeque = newMin;
+        maxDeque = newMax;
+        minHead = maxHead = 0;
+        mask = newMask;
+    }
+
+    private void evictOlderThan(long cutoffMs) {
+        while (tailSeq > headSeq && times[idx(headSeq)] < cutoffMs) {
+            evictHead();
+        }
+    }
+
+    private void evictHead() {
+        long seq = headSeq++;
+        if (minSize > 0 && minDeque[minHead] == seq) {
+            minHead = (minHead + 1) & mask;
+            minSize--;
+        }
+        if (maxSize > 0 && maxDeque[maxHead] == seq) {
+            maxHead = (maxHead + 1) & mask;
+            maxSize--;
+        }
+    }
+
+    private int idx(long seq) {
+        return (int) (seq & mask);
+    }
+}
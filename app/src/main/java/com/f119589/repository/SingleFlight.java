@@ -0,0 +1,96 @@
+package com.f119589.repository;
+
+import android.os.SystemClock;
+
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent calls by key: while a call for a key is in flight, every other caller for that key
+ * shares its result instead of starting a second request. After a call completes (successfully or not) the
+ * key can optionally cool down, during which new calls are skipped.
+ */
+final class SingleFlight {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new HashMap<>();
+    private final Map<String, Long> completedAt = new HashMap<>();
+
+    /**
+     * Runs {@code call} on the calling thread, or waits for the call already in flight for {@code key}.
+     * If that call gets cancelled, a waiting caller retries as the new leader.
+     *
+     * @return the (shared) result, or null if the key is cooling down.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T join(String key, long cooldownMs, Callable<T> call) throws Exception {
+        while (true) {
+            CompletableFuture<Object> flight;
+            boolean leader = false;
+            synchronized (this) {
+                flight = inFlight.get(key);
+                if (flight == null) {
+                    if (isCoolingDown(key, cooldownMs)) return null;
+                    flight = begin(key);
+                    leader = true;
+                }
+            }
+            if (leader) {
+                return (T) complete(key, flight, call);
+            }
+            try {
+                return (T) flight.get();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (isCancellation(cause)) continue;
+                if (cause instanceof Exception) throw (Exception) cause;
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Clears the cooldown of {@code key}, e.g. when the resource it guards was removed.
+     */
+    synchronized void forget(String key) {
+        completedAt.remove(key);
+    }
+
+    private boolean isCoolingDown(String key, long cooldownMs) {
+        if (cooldownMs <= 0) return false;
+        Long done = completedAt.get(key);
+        return done != null && SystemClock.elapsedRealtime() - done < cooldownMs;
+    }
+
+    private static boolean isCancellation(Throwable t) {
+        return t instanceof InterruptedException || t instanceof InterruptedIOException;
+    }
+
+    private CompletableFuture<Object> begin(String key) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        inFlight.put(key, flight);
+        return flight;
+    }
+
+    private Object complete(String key, CompletableFuture<Object> flight, Callable<?> call) throws Exception {
+        boolean cancelled = false;
+        try {
+            Object result = call.call();
+            flight.complete(result);
+            return result;
+        } catch (Exception ex) {
+            cancelled = isCancellation(ex);
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            synchronized (this) {
+                inFlight.remove(key);
+                // A cancelled call didn't really happen; let the next caller retry right away
+                if (!cancelled) completedAt.put(key, SystemClock.elapsedRealtime());
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.f119589.repository;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns pair symbols (wsNames) into dense int ids, so the tick pipeline can index arrays instead of
+ * hashing and comparing strings at every hop.
+ * <p>
+ * Ids are assigned once and never reused; the registry is filled from the asset-pair catalog and grows for
+ * symbols seen before the catalog (e.g. favourites on a cold start). A string lookup only happens at the
+ * edges: when a frame is decoded, and when talking to the DB or the UI.
+ */
+public final class SymbolRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // Guarded by this for writes; an id is only handed out after its slot is filled
+    private volatile String[] symbols = new String[256];
+    private int size;
+
+    /**
+     * Returns the id of {@code symbol}, assigning the next free one on first sight.
+     */
+    public int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : register(symbol);
+    }
+
+    /**
+     * @return the id of {@code symbol}, or {@link #UNKNOWN} if it was never registered.
+     */
+    public int find(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : UNKNOWN;
+    }
+
+    public String symbol(int id) {
+        return symbols[id];
+    }
+
+    /**
+     * Upper bound (exclusive) of the ids handed out so far.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int register(String symbol) {
+        Integer existing = ids.get(symbol);
+        if (existing != null) return existing;
+        int id = size++;
+        String[] table = symbols;
+        if (id == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[id] = symbol;
+        symbols = table;
+        ids.put(symbol, id);
+        return id;
+    }
+}
@@ -0,0 +1,241 @@
+package com.f119589.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Small fixed-size worker pool with priority classes, queue-level dedupe and cancellation.
+ * <p>
+ * Tasks run highest priority first, FIFO within a class. Submitting a task whose key is already queued
+ * does not queue it twice; the queued task is promoted to the higher of the two priorities instead (e.g. a
+ * background sparkline prefetch becomes user-visible when the pair is opened). Every submission gets its
+ * own {@link Handle}; a task is cancelled once all handles interested in it are cancelled. Queued tasks are
+ * simply dropped, running ones are interrupted. Each priority class has a bounded queue; submissions to a
+ * full class are rejected.
+ */
+public final class TaskScheduler {
+
+    private static final String TAG = "TaskScheduler";
+
+    public enum Priority {
+        /**
+         * The user is waiting for it right now (opened screen, explicit action).
+         */
+        USER_VISIBLE,
+        /**
+         * Data for rows currently on screen.
+         */
+        VISIBLE_ROW,
+        /**
+         * Prefetching and housekeeping.
+         */
+        BACKGROUND
+    }
+
+    public record Stats(int userVisibleDepth,
+                        int visibleRowDepth,
+                        int backgroundDepth,
+                        int running,
+                        long completed,
+                        long cancelled,
+                        long rejected,
+                        long coalesced) {
+    }
+
+    private final Object lock = new Object();
+    private final int maxQueuedPerPriority;
+
+    // Guarded by lock
+    private final PriorityQueue<Task> queue = new PriorityQueue<>();
+    private final Map<String, Task> queuedByKey = new HashMap<>();
+    private final int[] depth = new int[Priority.values().length];
+    private long nextSeq;
+    private int running;
+    private long completed;
+    private long cancelled;
+    private long rejected;
+    private long coalesced;
+
+    TaskScheduler(String name, int threads, int maxQueuedPerPriority) {
+        this.maxQueuedPerPriority = maxQueuedPerPriority;
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::workLoop, name + "-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * @param key tasks with equal non-null keys are coalesced while queued.
+     */
+    Handle submit(Priority priority, @Nullable String key, Runnable body) {
+        synchronized (lock) {
+            Task existing = key != null ? queuedByKey.get(key) : null;
+            if (existing != null) {
+                coalesced++;
+                if (priority.ordinal() < existing.priority.ordinal()) {
+                    // Promote: re-insert with the new priority, keeping the original position in its new class
+                    queue.remove(existing);
+                    depth[existing.priority.ordinal()]--;
+                    existing.priority = priority;
+                    depth[priority.ordinal()]++;
+                    queue.add(existing);
+                }
+                existing.interest++;
+                return new Handle(existing);
+            }
+
+            if (depth[priority.ordinal()] >= maxQueuedPerPriority) {
+                rejected++;
+                Log.w(TAG, "Queue full for " + priority + ", rejecting " + (key != null ? key : "task"));
+                Handle handle = new Handle(null);
+                handle.cancelled = true;
+                return handle;
+            }
+
+            Task task = new Task(priority, nextSeq++, key, body);
+            queue.add(task);
+            depth[priority.ordinal()]++;
+            if (key != null) queuedByKey.put(key, task);
+            lock.notify();
+            return new Handle(task);
+        }
+    }
+
+    public Stats stats() {
+        synchronized (lock) {
+            return new Stats(depth[Priority.USER_VISIBLE.ordinal()], depth[Priority.VISIBLE_ROW.ordinal()],
+                    depth[Priority.BACKGROUND.ordinal()], running, completed, cancelled, rejected, coalesced);
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            Task task;
+            synchronized (lock) {
+                while (queue.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ignored) {
+                        // Stale interrupt from a cancelled task; keep serving
+                    }
+                }
+                task = queue.poll();
+                dequeued(task);
+                task.thread = Thread.currentThread();
+                running++;
+            }
+            try {
+                task.body.run();
+            } catch (RuntimeException ex) {
+                Log.e(TAG, "Task failed", ex);
+            } finally {
+                synchronized (lock) {
+                    task.thread = null;
+                    task.done = true;
+                    running--;
+                    completed++;
+                }
+                // Don't leak a cancellation interrupt into the next task
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private void dequeued(Task task) {
+        depth[task.priority.ordinal()]--;
+        if (task.key != null && queuedByKey.get(task.key) == task) {
+            queuedByKey.remove(task.key);
+        }
+    }
+
+    private void release(Task task) {
+        synchronized (lock) {
+            if (--task.interest > 0 || task.done) return;
+            cancelled++;
+            if (task.thread != null) {
+                task.thread.interrupt();
+            } else if (queue.remove(task)) {
+                dequeued(task);
+            }
+        }
+    }
+
+    private static final class Task implements Comparable<Task> {
+        final long seq;
+        @Nullable
+        final String key;
+        final Runnable body;
+        // Guarded by the scheduler lock
+        Priority priority;
+        int interest = 1;
+        Thread thread;
+        boolean done;
+
+        Task(Priority priority, long seq, @Nullable String key, Runnable body) {
+            this.priority = priority;
+            this.seq = seq;
+            this.key = key;
+            this.body = body;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+
+    /**
+     * One caller's interest in a submitted task.
+     */
+    public final class Handle {
+        @Nullable
+        private final Task task;
+        private boolean cancelled;
+
+        private Handle(@Nullable Task task) {
+            this.task = task;
+        }
+
+        public void cancel() {
+            synchronized (this) {
+                if (cancelled) return;
+                cancelled = true;
+            }
+            if (task != null) release(task);
+        }
+
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Cancels this handle when {@code owner} is destroyed. Must be called on the main thread.
+         */
+        public Handle bindTo(@NonNull LifecycleOwner owner) {
+            Lifecycle lifecycle = owner.getLifecycle();
+            if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+                cancel();
+                return this;
+            }
+            lifecycle.addObserver(new DefaultLifecycleObserver() {
+                @Override
+                public void onDestroy(@NonNull LifecycleOwner source) {
+                    source.getLifecycle().removeObserver(this);
+                    cancel();
+                }
+            });
+            return this;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.f119589.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.f119589.dto.TickEvent;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fan-out of live ticks to any number of main-thread consumers.
+ * <p>
+ * Every subscriber has its own symbol filter and minimum delivery interval. Ticks are conflated per
+ * subscriber into a latest-value-per-symbol table, and the whole table is delivered at most once per interval,
+ * so no symbol is lost and the UI cost per delivery is bounded by the number of symbols, not ticks.
+ * Ticks are routed by {@link SymbolRegistry} id; symbol strings are only resolved for the delivered events.
+ */
+public final class TickBus {
+
+    public interface Listener {
+        /**
+         * Called on the main thread with the latest tick of every symbol that changed since the previous call.
+         */
+        void onTicks(@NonNull List<TickEvent> latest);
+    }
+
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final SymbolRegistry registry;
+
+    TickBus(SymbolRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @param symbols       symbols to receive, or null for all.
+     * @param minIntervalMs minimum time between two deliveries to this subscriber.
+     */
+    public Subscription subscribe(@Nullable Set<String> symbols, long minIntervalMs, @NonNull Listener listener) {
+        Subscription s = new Subscription(symbols, minIntervalMs, listener);
+        subscriptions.add(s);
+        return s;
+    }
+
+    /**
+     * Same as {@link #subscribe}, but cancelled automatically when {@code owner} is destroyed.
+     */
+    public Subscription observe(@NonNull LifecycleOwner owner,
+                                @Nullable Set<String> symbols,
+                                long minIntervalMs,
+                                @NonNull Listener listener) {
+        Subscription s = subscribe(symbols, minIntervalMs, listener);
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            s.cancel();
+            return s;
+        }
+        lifecycle.addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                source.getLifecycle().removeObserver(this);
+                s.cancel();
+            }
+        });
+        return s;
+    }
+
+    /**
+     * Safe to call from any thread.
+     */
+    public void publish(int symbolId, double price) {
+        if (subscriptions.isEmpty()) return;
+        for (Subscription s : subscriptions) {
+            s.offer(symbolId, price);
+        }
+    }
+
+    public final class Subscription {
+        private final long minIntervalMs;
+        private final Listener listener;
+        private final Object lock = new Object();
+        private final Runnable deliverTask = this::deliver;
+
+        // Immutable once published; null means all symbols
+        @Nullable
+        private volatile BitSet filter;
+        private volatile boolean cancelled;
+
+        // Guarded by lock; swapped with delivering on each delivery
+        private TickTable pending = new TickTable();
+        // Main thread only
+        private TickTable delivering = new TickTable();
+        private boolean scheduled;
+        private long lastDeliveredAt;
+
+        private Subscription(@Nullable Set<String> symbols, long minIntervalMs, Listener listener) {
+            this.filter = toFilter(symbols);
+            this.minIntervalMs = Math.max(0L, minIntervalMs);
+            this.listener = listener;
+        }
+
+        /**
+         * Replaces the symbol filter, e.g. after the favourites list changed. Null means all symbols.
+         */
+        public void setSymbols(@Nullable Set<String> symbols) {
+            this.filter = toFilter(symbols);
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            main.removeCallbacks(deliverTask);
+            synchronized (lock) {
+                pending.clear();
+                scheduled = false;
+            }
+        }
+
+        private void offer(int symbolId, double price) {
+            if (cancelled) return;
+            BitSet only = filter;
+            if (only != null && !only.get(symbolId)) return;
+
+            synchronized (lock) {
+                pending.put(symbolId, price, 0L);
+                if (scheduled) return;
+                scheduled = true;
+                long wait = lastDeliveredAt + minIntervalMs - SystemClock.uptimeMillis();
+                main.postDelayed(deliverTask, Math.max(0L, wait));
+            }
+        }
+
+        private void deliver() {
+            TickTable table;
+            synchronized (lock) {
+                scheduled = false;
+                if (pending.isEmpty()) return;
+                table = pending;
+                pending = delivering;
+                delivering = table;
+                lastDeliveredAt = SystemClock.uptimeMillis();
+            }
+            List<TickEvent> batch = new ArrayList<>(table.size());
+            for (int i = 0; i < table.size(); i++) {
+                int id = table.id(i);
+                batch.add(new TickEvent(id, registry.symbol(id), table.price(i)));
+            }
+            table.clear();
+            if (!cancelled) {
+                listener.onTicks(Collections.unmodifiableList(batch));
+            }
+        }
+    }
+
+    /**
+     * UI edge: symbol strings become a bit set of ids (registering symbols that haven't been seen yet).
+     */
+    @Nullable
+    private BitSet toFilter(@Nullable Set<String> symbols) {
+        if (symbols == null) return null;
+        BitSet ids = new BitSet();
+        for (String symbol : symbols) ids.set(registry.idOf(symbol));
+        return ids;
+    }
+}
@@ -0,0 +1,69 @@
+package com.f119589.repository;
+
+import java.util.Arrays;
+
+/**
+ * Latest price per symbol id since the last {@link #clear()}, in first-seen order.
+ * <p>
+ * Backed by arrays indexed by {@link SymbolRegistry} id plus a list of the ids that are pending, so recording
+ * a tick is an array store and draining touches only the pending ids. Not thread-safe; owners synchronize.
+ */
+public final class TickTable {
+
+    private double[] prices = new double[64];
+    private long[] times = new long[64];
+    private boolean[] pending = new boolean[64];
+    private int[] order = new int[16];
+    private int count;
+
+    /**
+     * @return true if the table was empty before this call.
+     */
+    public boolean put(int id, double price, long time) {
+        if (id >= pending.length) grow(id);
+        boolean wasEmpty = count == 0;
+        if (!pending[id]) {
+            pending[id] = true;
+            if (count == order.length) order = Arrays.copyOf(order, count * 2);
+            order[count++] = id;
+        }
+        prices[id] = price;
+        times[id] = time;
+        return wasEmpty;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Id of the {@code i}-th pending symbol, {@code 0 <= i < size()}.
+     */
+    public int id(int i) {
+        return order[i];
+    }
+
+    public double price(int i) {
+        return prices[order[i]];
+    }
+
+    public long time(int i) {
+        return times[order[i]];
+    }
+
+    public void clear() {
+        for (int i = 0; i < count; i++) pending[order[i]] = false;
+        count = 0;
+    }
+
+    private void grow(int id) {
+        int size = Math.max(id + 1, pending.length * 2);
+        prices = Arrays.copyOf(prices, size);
+        times = Arrays.copyOf(times, size);
+        pending = Arrays.copyOf(pending, size);
+    }
+}
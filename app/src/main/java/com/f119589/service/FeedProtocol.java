@@ -0,0 +1,34 @@
+package com.f119589.service;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Kraken WebSocket protocol used for the ticker feed.
+ */
+public enum FeedProtocol {
+    /**
+     * Legacy {@code wss://ws.kraken.com}: positional arrays keyed by channel id, one pair per message.
+     */
+    V1("v1"),
+    /**
+     * {@code wss://ws.kraken.com/v2}: typed messages, several symbols per update, server timestamps.
+     */
+    V2("v2");
+
+    private final String id;
+
+    FeedProtocol(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public static FeedProtocol fromId(@Nullable String id, FeedProtocol fallback) {
+        for (FeedProtocol p : values()) {
+            if (p.id.equals(id)) return p;
+        }
+        return fallback;
+    }
+}
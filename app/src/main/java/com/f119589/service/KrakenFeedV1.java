@@ -0,0 +1,65 @@
+package com.f119589.service;
+
+import com.google.gson.JsonArray;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Legacy v1 ticker feed; decoding is done by {@link KrakenFrameDecoder}.
+ */
+final class KrakenFeedV1 implements TickerFeed {
+
+    private static final String URL = "wss://ws.kraken.com";
+    private static final String PING_FRAME = "{\"event\":\"ping\"}";
+
+    // Decode target reused across frames
+    private final KrakenFrameDecoder.Frame frame = new KrakenFrameDecoder.Frame();
+
+    @Override
+    public FeedProtocol protocol() {
+        return FeedProtocol.V1;
+    }
+
+    @Override
+    public String url() {
+        return URL;
+    }
+
+    @Override
+    public String subscriptionFrame(boolean subscribe, List<String> pairs) {
+        // {"event":"subscribe","pair":["XBT/USD","ETH/USD"],"subscription":{"name":"ticker"}}
+        JsonArray pairArr = new JsonArray();
+        for (String p : pairs) pairArr.add(p);
+
+        return "{\"event\":\"" + (subscribe ? "subscribe" : "unsubscribe") + "\",\"pair\":" + pairArr +
+                ",\"subscription\":{\"name\":\"ticker\"}}";
+    }
+
+    @Override
+    public String pingFrame() {
+        return PING_FRAME;
+    }
+
+    @Override
+    public void decode(String text, Handler handler) throws IOException {
+        switch (KrakenFrameDecoder.decode(text, frame)) {
+            case TICKER:
+                handler.onTick(frame.pair(), frame.lastPrice(), 0);
+                break;
+            case HEARTBEAT:
+                // Cheap path: nothing to route, and far too frequent to log.
+                break;
+            case SUBSCRIPTION_STATUS:
+                if (frame.status() != null && frame.pair() != null) {
+                    handler.onSubscriptionStatus(frame.status(), frame.pair(), frame.errorMessage());
+                }
+                break;
+            case EVENT:
+                if (!"pong".equals(frame.event())) handler.onEvent(frame.event(), frame.status());
+                break;
+            default:
+                break;
+        }
+    }
+}
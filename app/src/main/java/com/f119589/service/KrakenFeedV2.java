@@ -0,0 +1,303 @@
+package com.f119589.service;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.JsonArray;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kraken WebSocket v2 ticker feed.
+ * <p>
+ * v2 messages are self-describing objects: {@code {"channel":"ticker","type":"update","data":[{...}, ...]}}
+ * for data (several symbols per message) and {@code {"method":"subscribe","success":true,"result":{...}}}
+ * for acknowledgements. Frames are read in one streaming pass; ticker entries are collected into reusable
+ * arrays and reported once the whole message has been read, so field order does not matter.
+ * <p>
+ * v2 spells some assets differently from the v1 wsNames the app stores (BTC vs XBT, DOGE vs XDG); symbols are
+ * translated per segment on the way out and mapped back on the way in.
+ */
+final class KrakenFeedV2 implements TickerFeed {
+
+    private static final String URL = "wss://ws.kraken.com/v2";
+    private static final String PING_FRAME = "{\"method\":\"ping\"}";
+    private static final String HEARTBEAT_FRAME = "{\"channel\":\"heartbeat\"}";
+
+    // Only push an update when the best bid/offer changes, not on every trade
+    private static final String EVENT_TRIGGER = "bbo";
+
+    private static final Map<String, String> V1_TO_V2 = Map.of("XBT", "BTC", "XDG", "DOGE");
+    private static final Map<String, String> V2_TO_V1 = Map.of("BTC", "XBT", "DOGE", "XDG");
+
+    // v2 symbol -> app pair, filled when subscribing (io thread), read by the reader thread
+    private final Map<String, String> appPairs = new ConcurrentHashMap<>();
+
+    // Reader-thread decode state, reused across frames
+    private String[] tickSymbols = new String[8];
+    private double[] tickPrices = new double[8];
+    private long[] tickTimes = new long[8];
+    private int tickCount;
+
+    @Override
+    public FeedProtocol protocol() {
+        return FeedProtocol.V2;
+    }
+
+    @Override
+    public String url() {
+        return URL;
+    }
+
+    @Override
+    public String subscriptionFrame(boolean subscribe, List<String> pairs) {
+        // {"method":"subscribe","params":{"channel":"ticker","symbol":["BTC/USD"],"event_trigger":"bbo","snapshot":true}}
+        JsonArray symbols = new JsonArray();
+        for (String pair : pairs) {
+            String symbol = toV2(pair);
+            appPairs.put(symbol, pair);
+            symbols.add(symbol);
+        }
+        StringBuilder sb = new StringBuilder(64 + symbols.size() * 12);
+        sb.append("{\"method\":\"").append(subscribe ? "subscribe" : "unsubscribe")
+                .append("\",\"params\":{\"channel\":\"ticker\",\"symbol\":").append(symbols);
+        if (subscribe) {
+            sb.append(",\"event_trigger\":\"").append(EVENT_TRIGGER).append("\",\"snapshot\":true");
+        }
+        return sb.append("}}").toString();
+    }
+
+    @Override
+    public String pingFrame() {
+        return PING_FRAME;
+    }
+
+    @Override
+    public void decode(String text, Handler handler) throws IOException {
+        if (text == null || text.isEmpty() || HEARTBEAT_FRAME.equals(text)) return;
+
+        String channel = null;
+        String method = null;
+        String type = null;
+        String symbol = null;
+        String error = null;
+        boolean success = false;
+        tickCount = 0;
+
+        try (JsonReader reader = new JsonReader(new StringReader(text))) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) return;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "channel":
+                        channel = KrakenFrameDecoder.nextStringOrNull(reader);
+                        break;
+                    case "method":
+                        method = KrakenFrameDecoder.nextStringOrNull(reader);
+                        break;
+                    case "type":
+                        type = KrakenFrameDecoder.nextStringOrNull(reader);
+                        break;
+                    case "success":
+                        success = reader.peek() == JsonToken.BOOLEAN ? reader.nextBoolean() : skipFalse(reader);
+                        break;
+                    case "error":
+                        error = KrakenFrameDecoder.nextStringOrNull(reader);
+                        break;
+                    case "symbol":
+                        // Present at the top level on failed requests
+                        symbol = KrakenFrameDecoder.nextStringOrNull(reader);
+                        break;
+                    case "result":
+                        String resultSymbol = readResultSymbol(reader);
+                        if (resultSymbol != null) symbol = resultSymbol;
+                        break;
+                    case "data":
+                        readData(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+        }
+
+        if ("ticker".equals(channel)) {
+            for (int i = 0; i < tickCount; i++) {
+                handler.onTick(toAppPair(tickSymbols[i]), tickPrices[i], tickTimes[i]);
+                tickSymbols[i] = null;
+            }
+        } else if ("subscribe".equals(method) || "unsubscribe".equals(method)) {
+            if (symbol == null) {
+                handler.onEvent(method, error != null ? error : String.valueOf(success));
+            } else if (!success) {
+                handler.onSubscriptionStatus(STATUS_ERROR, toAppPair(symbol), error);
+            } else {
+                handler.onSubscriptionStatus("subscribe".equals(method) ? STATUS_SUBSCRIBED : STATUS_UNSUBSCRIBED,
+                        toAppPair(symbol), null);
+            }
+        } else if (channel != null && !"heartbeat".equals(channel)) {
+            handler.onEvent(channel, type);
+        } else if (method != null && !"pong".equals(method)) {
+            handler.onEvent(method, error != null ? error : String.valueOf(success));
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Decoding
+    // ---------------------------------------------------------------------
+
+    @Nullable
+    private static String readResultSymbol(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String symbol = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("symbol".equals(reader.nextName())) {
+                symbol = KrakenFrameDecoder.nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return symbol;
+    }
+
+    /**
+     * Collects {symbol, last, timestamp} of every entry; entries of other channels simply lack "last".
+     */
+    private void readData(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            String symbol = null;
+            double last = Double.NaN;
+            long time = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "symbol":
+                        symbol = KrakenFrameDecoder.nextStringOrNull(reader);
+                        break;
+                    case "last":
+                        JsonToken token = reader.peek();
+                        if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+                            last = reader.nextDouble();
+                        } else {
+                            reader.skipValue();
+                        }
+                        break;
+                    case "timestamp":
+                        time = parseTimestampMs(KrakenFrameDecoder.nextStringOrNull(reader));
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            if (symbol != null && !Double.isNaN(last)) addTick(symbol, last, time);
+        }
+        reader.endArray();
+    }
+
+    private void addTick(String symbol, double last, long time) {
+        if (tickCount == tickSymbols.length) {
+            int size = tickCount * 2;
+            tickSymbols = Arrays.copyOf(tickSymbols, size);
+            tickPrices = Arrays.copyOf(tickPrices, size);
+            tickTimes = Arrays.copyOf(tickTimes, size);
+        }
+        tickSymbols[tickCount] = symbol;
+        tickPrices[tickCount] = last;
+        tickTimes[tickCount] = time;
+        tickCount++;
+    }
+
+    private static boolean skipFalse(JsonReader reader) throws IOException {
+        reader.skipValue();
+        return false;
+    }
+
+    /**
+     * Parses Kraken's RFC 3339 UTC timestamps ("2024-05-01T12:34:56.789123Z") to epoch millis; 0 if malformed.
+     * Hand-rolled because java.time needs API 26.
+     */
+    static long parseTimestampMs(@Nullable String ts) {
+        if (ts == null || ts.length() < 20 || ts.charAt(4) != '-' || ts.charAt(10) != 'T') return 0;
+        try {
+            int year = Integer.parseInt(ts.substring(0, 4));
+            int month = Integer.parseInt(ts.substring(5, 7));
+            int day = Integer.parseInt(ts.substring(8, 10));
+            int hour = Integer.parseInt(ts.substring(11, 13));
+            int minute = Integer.parseInt(ts.substring(14, 16));
+            int second = Integer.parseInt(ts.substring(17, 19));
+            int millis = 0;
+            int i = 19;
+            if (ts.charAt(i) == '.') {
+                int digits = 0;
+                for (i++; i < ts.length() && Character.isDigit(ts.charAt(i)); i++) {
+                    if (digits < 3) {
+                        millis = millis * 10 + (ts.charAt(i) - '0');
+                        digits++;
+                    }
+                }
+                for (; digits < 3; digits++) millis *= 10;
+            }
+            if (i >= ts.length() || ts.charAt(i) != 'Z') return 0;
+            long days = daysFromCivil(year, month, day);
+            return ((days * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date (H. Hinnant's algorithm).
+     */
+    private static long daysFromCivil(int y, int m, int d) {
+        y -= m <= 2 ? 1 : 0;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+
+    // ---------------------------------------------------------------------
+    // Symbol translation
+    // ---------------------------------------------------------------------
+
+    static String toV2(String pair) {
+        return translate(pair, V1_TO_V2);
+    }
+
+    private String toAppPair(String symbol) {
+        String pair = appPairs.get(symbol);
+        return pair != null ? pair : translate(symbol, V2_TO_V1);
+    }
+
+    private static String translate(String pair, Map<String, String> aliases) {
+        int slash = pair.indexOf('/');
+        if (slash < 0) return aliases.getOrDefault(pair, pair);
+        String base = pair.substring(0, slash);
+        String quote = pair.substring(slash + 1);
+        return aliases.getOrDefault(base, base) + "/" + aliases.getOrDefault(quote, quote);
+    }
+}
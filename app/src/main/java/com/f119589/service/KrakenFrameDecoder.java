@@ -0,0 +1,219 @@
+package com.f119589.service;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Streaming decoder for Kraken v1 WebSocket frames.
+ * <p>
+ * Reads only the fields we route on (event name, status, channel name, pair and c[0])
+ * and skips everything else, so no JsonObject/JsonArray tree is built per frame.
+ */
+public final class KrakenFrameDecoder {
+
+    private KrakenFrameDecoder() {
+        // Utility class - prevent instantiation
+    }
+
+    private static final String HEARTBEAT_FRAME = "{\"event\":\"heartbeat\"}";
+
+    public enum FrameType {
+        TICKER,
+        HEARTBEAT,
+        SUBSCRIPTION_STATUS,
+        EVENT,
+        UNKNOWN
+    }
+
+    /**
+     * Mutable decode target; reuse one instance per socket reader to avoid per-frame allocation.
+     */
+    public static final class Frame {
+        FrameType type = FrameType.UNKNOWN;
+        String event;
+        String status;
+        String pair;
+        String channelName;
+        String errorMessage;
+        double lastPrice = Double.NaN;
+
+        void reset() {
+            type = FrameType.UNKNOWN;
+            event = null;
+            status = null;
+            pair = null;
+            channelName = null;
+            errorMessage = null;
+            lastPrice = Double.NaN;
+        }
+
+        public FrameType type() {
+            return type;
+        }
+
+        @Nullable
+        public String event() {
+            return event;
+        }
+
+        @Nullable
+        public String status() {
+            return status;
+        }
+
+        @Nullable
+        public String pair() {
+            return pair;
+        }
+
+        @Nullable
+        public String errorMessage() {
+            return errorMessage;
+        }
+
+        public double lastPrice() {
+            return lastPrice;
+        }
+    }
+
+    /**
+     * Decodes {@code text} into {@code out} and returns the resulting frame type.
+     */
+    public static FrameType decode(String text, Frame out) throws IOException {
+        out.reset();
+        if (text == null || text.isEmpty()) return out.type;
+
+        // Heartbeats arrive every second per connection; don't even open a reader for them.
+        if (HEARTBEAT_FRAME.equals(text)) {
+            out.event = "heartbeat";
+            out.type = FrameType.HEARTBEAT;
+            return out.type;
+        }
+
+        char first = firstNonWhitespace(text);
+        if (first != '{' && first != '[') return out.type;
+
+        try (JsonReader reader = new JsonReader(new StringReader(text))) {
+            if (first == '{') {
+                readEvent(reader, out);
+            } else {
+                readDataArray(reader, out);
+            }
+        }
+        return out.type;
+    }
+
+    // ---------------------------------------------------------------------
+    // Event objects: {"event":"subscriptionStatus","pair":"XBT/USD","status":"subscribed",...}
+    // ---------------------------------------------------------------------
+
+    private static void readEvent(JsonReader reader, Frame out) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "event":
+                    out.event = nextStringOrNull(reader);
+                    break;
+                case "status":
+                    out.status = nextStringOrNull(reader);
+                    break;
+                case "pair":
+                    out.pair = nextStringOrNull(reader);
+                    break;
+                case "errorMessage":
+                    out.errorMessage = nextStringOrNull(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (out.event == null) {
+            out.type = FrameType.UNKNOWN;
+        } else if ("heartbeat".equals(out.event)) {
+            out.type = FrameType.HEARTBEAT;
+        } else if ("subscriptionStatus".equals(out.event)) {
+            out.type = FrameType.SUBSCRIPTION_STATUS;
+        } else {
+            out.type = FrameType.EVENT;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Data arrays: [ chanId, {"a":[...],"b":[...],"c":["price","lot"],...}, "ticker", "PAIR" ]
+    // ---------------------------------------------------------------------
+
+    private static void readDataArray(JsonReader reader, Frame out) throws IOException {
+        reader.beginArray();
+        if (!reader.hasNext()) return;
+        reader.skipValue(); // channel id
+
+        if (!reader.hasNext() || reader.peek() != JsonToken.BEGIN_OBJECT) return;
+        readTickerPayload(reader, out);
+
+        if (reader.hasNext()) {
+            out.channelName = nextStringOrNull(reader);
+        }
+        if (reader.hasNext()) {
+            String pair = nextStringOrNull(reader);
+            if (out.pair == null) out.pair = pair;
+        }
+        // Remaining elements (if any) are irrelevant; the reader is closed by the caller.
+
+        boolean isTicker = out.channelName != null && out.channelName.startsWith("ticker");
+        if (isTicker && out.pair != null && !Double.isNaN(out.lastPrice)) {
+            out.type = FrameType.TICKER;
+        }
+    }
+
+    private static void readTickerPayload(JsonReader reader, Frame out) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("c".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                if (reader.hasNext()) {
+                    JsonToken token = reader.peek();
+                    if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                        out.lastPrice = reader.nextDouble();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                while (reader.hasNext()) reader.skipValue();
+                reader.endArray();
+            } else if ("pair".equals(name)) {
+                out.pair = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    @Nullable
+    static String nextStringOrNull(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    private static char firstNonWhitespace(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (!Character.isWhitespace(ch)) return ch;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.f119589.service;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Follows the system default network and reports when it switches (e.g. Wi-Fi to cellular), comes back or
+ * goes away. Callbacks arrive on a ConnectivityManager thread.
+ */
+final class NetworkMonitor {
+
+    private static final String TAG = "NetworkMonitor";
+
+    interface Listener {
+        void onNetworkAvailable();
+
+        void onNetworkLost();
+    }
+
+    private final ConnectivityManager connectivity;
+    private final Listener listener;
+    private final ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(@NonNull Network network) {
+            synchronized (NetworkMonitor.this) {
+                // Registration replays the current default network; that is not a change
+                if (network.equals(current)) return;
+                current = network;
+            }
+            Log.i(TAG, "Default network available: " + network);
+            listener.onNetworkAvailable();
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            synchronized (NetworkMonitor.this) {
+                if (!network.equals(current)) return;
+                current = null;
+            }
+            Log.i(TAG, "Default network lost: " + network);
+            listener.onNetworkLost();
+        }
+    };
+
+    @Nullable
+    private Network current;
+    private boolean registered;
+
+    NetworkMonitor(Context context, Listener listener) {
+        this.connectivity = Objects.requireNonNull(context.getSystemService(ConnectivityManager.class));
+        this.listener = listener;
+    }
+
+    void start() {
+        synchronized (this) {
+            if (registered) return;
+            registered = true;
+            current = connectivity.getActiveNetwork();
+        }
+        try {
+            connectivity.registerDefaultNetworkCallback(callback);
+        } catch (RuntimeException ex) {
+            // Too many callbacks or missing permission; reconnect backoff still works without this
+            Log.w(TAG, "Could not watch connectivity", ex);
+        }
+    }
+
+    void stop() {
+        synchronized (this) {
+            if (!registered) return;
+            registered = false;
+        }
+        try {
+            connectivity.unregisterNetworkCallback(callback);
+        } catch (IllegalArgumentException ignored) {
+            // Never registered
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.f119589.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Immutable consistent-hash ring mapping pair symbols onto {@code shardCount} connections.
+ * <p>
+ * Every shard owns {@link #VIRTUAL_NODES} points on the ring; a symbol belongs to the first point at or
+ * after its own hash. Growing or shrinking the ring by one shard therefore only moves the symbols that
+ * land on that shard's points (about 1/n of them), instead of reshuffling every pair.
+ */
+final class ShardRing {
+
+    static final int VIRTUAL_NODES = 64;
+
+    private final int shardCount;
+    private final int[] points;
+    private final int[] owners;
+
+    ShardRing(int shardCount) {
+        if (shardCount <= 0) throw new IllegalArgumentException("shardCount must be > 0");
+        this.shardCount = shardCount;
+
+        long[] packed = new long[shardCount * VIRTUAL_NODES];
+        int n = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                int point = hash("shard-" + shard + "#" + v);
+                // Sort by point, ties broken by shard so the ring is deterministic
+                packed[n++] = ((long) point << 32) | shard;
+            }
+        }
+        Arrays.sort(packed);
+        this.points = new int[n];
+        this.owners = new int[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = (int) (packed[i] >> 32);
+            owners[i] = (int) packed[i];
+        }
+    }
+
+    int shardCount() {
+        return shardCount;
+    }
+
+    int shardFor(String symbol) {
+        if (shardCount == 1) return 0;
+        int h = hash(symbol);
+        int i = Arrays.binarySearch(points, h);
+        if (i < 0) i = -i - 1;
+        if (i == points.length) i = 0; // wrap around
+        return owners[i];
+    }
+
+    /**
+     * 32-bit FNV-1a with a final avalanche; String.hashCode() clusters badly for short, similar symbols.
+     */
+    static int hash(String s) {
+        int h = 0x811c9dc5;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
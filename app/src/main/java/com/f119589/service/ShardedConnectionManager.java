@@ -0,0 +1,232 @@
+package com.f119589.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.f119589.repository.SymbolRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Spreads the watchlist over up to {@code maxShards} WebSocket connections.
+ * <p>
+ * The number of active shards follows the watchlist size ({@code pairsPerShard} pairs each, with some
+ * slack before shrinking so a watchlist hovering at a boundary doesn't flap). Pairs are placed with a
+ * {@link ShardRing}, so adding or removing a favourite touches one shard, and growing or shrinking the ring
+ * only moves the pairs of the shard that appeared or went away. Each shard diffs its own subscriptions, so
+ * a pair that stays put is not resubscribed. All state is confined to the {@code io} executor.
+ * <p>
+ * Connectivity changes are forwarded to every shard, and a watchdog checks their heartbeats every
+ * {@link #WATCHDOG_INTERVAL_MS}. After a network change the time until every shard has delivered a live tick
+ * again is logged as the watchlist's time-to-fresh-prices.
+ */
+final class ShardedConnectionManager {
+
+    private static final String TAG = "ShardedConnections";
+
+    static final long WATCHDOG_INTERVAL_MS = 1_000;
+
+    private final ScheduledExecutorService io;
+    private final int maxShards;
+    private final int pairsPerShard;
+    private final List<WsShard> shards;
+    private final SymbolRegistry registry;
+
+    // io-confined
+    private final Set<String> desired = new HashSet<>();
+    private final Set<Integer> awaitingFresh = new HashSet<>();
+    private long networkChangedAtMs;
+
+    private volatile long lastNetworkRecoveryMs = -1;
+
+    // Replaced on io, read by the ingest worker
+    private volatile ShardRing ring = new ShardRing(1);
+    // Symbol id -> shard index, written on io. The ingest worker may briefly see a stale entry after a
+    // rebalance, which only misattributes a lag sample.
+    private volatile int[] shardById = new int[256];
+
+    ShardedConnectionManager(OkHttpClient client,
+                             ScheduledExecutorService io,
+                             TickIngestBuffer ingest,
+                             SymbolRegistry registry,
+                             FeedProtocol protocol,
+                             Consumer<Collection<String>> onShardOpened,
+                             int maxShards,
+                             int pairsPerShard) {
+        if (maxShards <= 0 || pairsPerShard <= 0) throw new IllegalArgumentException("shard limits must be > 0");
+        this.io = io;
+        this.registry = registry;
+        this.maxShards = maxShards;
+        this.pairsPerShard = pairsPerShard;
+        List<WsShard> list = new ArrayList<>(maxShards);
+        for (int i = 0; i < maxShards; i++) {
+            list.add(new WsShard(i, client, io, ingest, registry, protocol, onShardOpened, this::onShardFresh));
+        }
+        this.shards = Collections.unmodifiableList(list);
+        io.scheduleWithFixedDelay(this::checkHeartbeats,
+                WATCHDOG_INTERVAL_MS, WATCHDOG_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // ---------------------------------------------------------------------
+    // Inputs (any thread)
+    // ---------------------------------------------------------------------
+
+    void replaceDesired(Collection<String> symbols) {
+        Set<String> copy = new HashSet<>(symbols);
+        io.execute(() -> {
+            desired.clear();
+            desired.addAll(copy);
+            rebalance();
+        });
+    }
+
+    void addDesired(String symbol) {
+        io.execute(() -> {
+            if (!desired.add(symbol)) return;
+            if (targetShardCount() != ring.shardCount()) {
+                rebalance();
+            } else {
+                int shard = ring.shardFor(symbol);
+                setShard(symbol, shard);
+                shards.get(shard).add(symbol);
+            }
+        });
+    }
+
+    void removeDesired(String symbol) {
+        io.execute(() -> {
+            if (!desired.remove(symbol)) return;
+            if (targetShardCount() != ring.shardCount()) {
+                rebalance();
+            } else {
+                shards.get(ring.shardFor(symbol)).remove(symbol);
+            }
+        });
+    }
+
+    void onNetworkAvailable() {
+        io.execute(() -> {
+            networkChangedAtMs = SystemClock.elapsedRealtime();
+            awaitingFresh.clear();
+            for (WsShard shard : shards) {
+                if (shard.hasPairs()) awaitingFresh.add(shard.index());
+                shard.onNetworkAvailable();
+            }
+        });
+    }
+
+    /**
+     * Moves every connection to {@code protocol}; shards reconnect one by one as they switch.
+     */
+    void switchProtocol(FeedProtocol protocol) {
+        io.execute(() -> {
+            for (WsShard shard : shards) shard.switchProtocol(protocol);
+        });
+    }
+
+    void onNetworkLost() {
+        io.execute(() -> {
+            for (WsShard shard : shards) shard.onNetworkLost();
+        });
+    }
+
+    /**
+     * Time from the last network change until every shard was live again, or -1 if not measured yet.
+     */
+    long lastNetworkRecoveryMs() {
+        return lastNetworkRecoveryMs;
+    }
+
+    /**
+     * Ingest worker: attributes a tick's queueing delay to the shard that delivered it.
+     */
+    void recordIngestLag(int symbolId, long lagMs) {
+        int[] table = shardById;
+        if (symbolId < table.length) shards.get(table[symbolId]).recordIngestLag(lagMs);
+    }
+
+    /**
+     * Closes every connection. Safe to call from any thread; the manager is unusable afterwards.
+     */
+    void shutdown() {
+        for (WsShard shard : shards) shard.shutdown();
+    }
+
+    /**
+     * io thread only.
+     */
+    List<WsShard.Stats> stats() {
+        List<WsShard.Stats> out = new ArrayList<>(shards.size());
+        for (WsShard shard : shards) out.add(shard.stats());
+        return out;
+    }
+
+    // ---------------------------------------------------------------------
+    // io thread
+    // ---------------------------------------------------------------------
+
+    private void rebalance() {
+        int target = targetShardCount();
+        if (target != ring.shardCount()) ring = new ShardRing(target);
+
+        List<Set<String>> buckets = new ArrayList<>(maxShards);
+        for (int i = 0; i < maxShards; i++) buckets.add(new HashSet<>());
+        for (String symbol : desired) {
+            int shard = ring.shardFor(symbol);
+            setShard(symbol, shard);
+            buckets.get(shard).add(symbol);
+        }
+        // Shards beyond the ring get an empty set and close their socket
+        for (int i = 0; i < maxShards; i++) {
+            shards.get(i).assign(buckets.get(i));
+        }
+    }
+
+    private void setShard(String symbol, int shard) {
+        int id = registry.idOf(symbol);
+        int[] table = shardById;
+        if (id >= table.length) {
+            table = Arrays.copyOf(table, Math.max(id + 1, table.length * 2));
+        }
+        table[id] = shard;
+        shardById = table;
+    }
+
+    private void checkHeartbeats() {
+        long now = SystemClock.elapsedRealtime();
+        for (WsShard shard : shards) shard.checkHeartbeat(now);
+    }
+
+    private void onShardFresh(int shard, long recoveryMs, String reason) {
+        io.execute(() -> {
+            if (!awaitingFresh.remove(shard) || !awaitingFresh.isEmpty()) return;
+            long total = SystemClock.elapsedRealtime() - networkChangedAtMs;
+            lastNetworkRecoveryMs = total;
+            Log.i(TAG, "Watchlist fresh " + total + " ms after network change");
+        });
+    }
+
+    private int targetShardCount() {
+        int current = ring.shardCount();
+        int needed = ceilDiv(desired.size(), pairsPerShard);
+        if (needed > current) return Math.min(maxShards, needed);
+        // Only shrink once the watchlist is a quarter shard below the boundary
+        int withSlack = ceilDiv(desired.size() + pairsPerShard / 4, pairsPerShard);
+        return Math.max(1, Math.min(current, withSlack));
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
@@ -0,0 +1,267 @@
+package com.f119589.service;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticker subscription state machine, run as an actor on one single-threaded executor.
+ * <p>
+ * All inputs (favourite changes, connection changes, subscription status frames) are posted to the executor,
+ * so the state needs no locking. Favourite changes are debounced into one diff against what is subscribed or
+ * in flight, which is then sent as at most one subscribe and one unsubscribe frame (per
+ * {@link #MAX_PAIRS_PER_FRAME} pairs). Failed pairs are retried with exponential backoff, each on its own schedule.
+ */
+final class SubscriptionManager {
+
+    private static final String TAG = "SubscriptionManager";
+
+    static final long DEBOUNCE_MS = 250;
+    static final long RETRY_BASE_MS = TimeUnit.SECONDS.toMillis(2);
+    static final long RETRY_MAX_MS = TimeUnit.MINUTES.toMillis(2);
+    private static final int MAX_PAIRS_PER_FRAME = 100;
+
+    interface Sender {
+        /**
+         * Sends one subscribe or unsubscribe frame in the connection's protocol.
+         *
+         * @return false if the frame could not be queued (socket closing).
+         */
+        boolean send(boolean subscribe, List<String> pairs);
+    }
+
+    enum PairState {
+        SUBSCRIBING,
+        ACTIVE,
+        UNSUBSCRIBING,
+        BACKOFF
+    }
+
+    /**
+     * Immutable copy of the state, republished after every transition.
+     */
+    record Snapshot(boolean connected,
+                    Set<String> desired,
+                    Map<String, PairState> pairs,
+                    Map<String, Integer> failures) {
+    }
+
+    private final ScheduledExecutorService actor;
+    private final String name;
+
+    // Actor-confined state
+    private final Set<String> desired = new HashSet<>();
+    private final Map<String, PairState> pairs = new HashMap<>();
+    private final Map<String, Integer> failures = new HashMap<>();
+    private final Map<String, ScheduledFuture<?>> retries = new HashMap<>();
+    @Nullable
+    private Sender sender;
+    @Nullable
+    private ScheduledFuture<?> pendingReconcile;
+
+    private volatile Snapshot snapshot =
+            new Snapshot(false, Collections.emptySet(), Collections.emptyMap(), Collections.emptyMap());
+
+    /**
+     * @param actor must be single-threaded; it may be shared with other work.
+     * @param name  connection name used in log messages.
+     */
+    SubscriptionManager(ScheduledExecutorService actor, String name) {
+        this.actor = actor;
+        this.name = name;
+    }
+
+    // ---------------------------------------------------------------------
+    // Inputs (any thread)
+    // ---------------------------------------------------------------------
+
+    void replaceDesired(Collection<String> symbols) {
+        Set<String> copy = new HashSet<>(symbols);
+        actor.execute(() -> {
+            desired.clear();
+            desired.addAll(copy);
+            scheduleReconcile();
+        });
+    }
+
+    void addDesired(String symbol) {
+        actor.execute(() -> {
+            if (desired.add(symbol)) scheduleReconcile();
+        });
+    }
+
+    void removeDesired(String symbol) {
+        actor.execute(() -> {
+            if (desired.remove(symbol)) scheduleReconcile();
+        });
+    }
+
+    /**
+     * A fresh socket knows no subscriptions; everything desired is subscribed again right away.
+     */
+    void onConnected(Sender newSender) {
+        actor.execute(() -> {
+            sender = newSender;
+            resetPairs();
+            reconcile();
+        });
+    }
+
+    void onDisconnected() {
+        actor.execute(() -> {
+            sender = null;
+            resetPairs();
+            publish();
+        });
+    }
+
+    void onStatus(String status, String pair, @Nullable String errorMessage) {
+        actor.execute(() -> handleStatus(status, pair, errorMessage));
+    }
+
+    @VisibleForTesting
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    // ---------------------------------------------------------------------
+    // Actor thread
+    // ---------------------------------------------------------------------
+
+    private void scheduleReconcile() {
+        if (pendingReconcile != null) pendingReconcile.cancel(false);
+        pendingReconcile = actor.schedule(this::reconcile, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        publish();
+    }
+
+    private void reconcile() {
+        pendingReconcile = null;
+        if (sender == null) {
+            publish();
+            return;
+        }
+
+        List<String> toSubscribe = new ArrayList<>();
+        for (String symbol : desired) {
+            // A pair still unsubscribing is picked up again once "unsubscribed" arrives
+            if (!pairs.containsKey(symbol)) toSubscribe.add(symbol);
+        }
+        List<String> toUnsubscribe = new ArrayList<>();
+        for (Map.Entry<String, PairState> e : new ArrayList<>(pairs.entrySet())) {
+            String symbol = e.getKey();
+            if (desired.contains(symbol)) continue;
+            switch (e.getValue()) {
+                case SUBSCRIBING:
+                case ACTIVE:
+                    toUnsubscribe.add(symbol);
+                    break;
+                case BACKOFF:
+                    cancelRetry(symbol);
+                    pairs.remove(symbol);
+                    failures.remove(symbol);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (!toUnsubscribe.isEmpty() && sendBatches(false, toUnsubscribe)) {
+            for (String symbol : toUnsubscribe) pairs.put(symbol, PairState.UNSUBSCRIBING);
+            Log.i(TAG, name + ": unsubscribe request: " + toUnsubscribe);
+        }
+        if (!toSubscribe.isEmpty() && sendBatches(true, toSubscribe)) {
+            for (String symbol : toSubscribe) pairs.put(symbol, PairState.SUBSCRIBING);
+            Log.i(TAG, name + ": subscribe request: " + toSubscribe);
+        }
+        publish();
+    }
+
+    private void handleStatus(String status, String pair, @Nullable String errorMessage) {
+        if (status == null || pair == null) return;
+        switch (status) {
+            case TickerFeed.STATUS_SUBSCRIBED:
+                failures.remove(pair);
+                Log.i(TAG, name + ": subscription confirmed: " + pair);
+                // An unsubscribe sent while this was in flight is already on its way
+                if (pairs.get(pair) != PairState.UNSUBSCRIBING) {
+                    pairs.put(pair, PairState.ACTIVE);
+                    if (!desired.contains(pair)) scheduleReconcile();
+                }
+                break;
+            case TickerFeed.STATUS_UNSUBSCRIBED:
+                pairs.remove(pair);
+                Log.i(TAG, name + ": unsubscribe confirmed: " + pair);
+                if (desired.contains(pair)) scheduleReconcile(); // re-added in the meantime
+                break;
+            case TickerFeed.STATUS_ERROR:
+                Log.w(TAG, name + ": subscription error for " + pair + ": " + errorMessage);
+                pairs.remove(pair);
+                if (desired.contains(pair)) scheduleRetry(pair);
+                break;
+            default:
+                break;
+        }
+        publish();
+    }
+
+    private void scheduleRetry(String pair) {
+        int attempt = failures.merge(pair, 1, Integer::sum);
+        long delayMs = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(attempt - 1, 16));
+        pairs.put(pair, PairState.BACKOFF);
+        cancelRetry(pair);
+        retries.put(pair, actor.schedule(() -> {
+            retries.remove(pair);
+            if (pairs.get(pair) != PairState.BACKOFF) return;
+            pairs.remove(pair);
+            reconcile();
+        }, delayMs, TimeUnit.MILLISECONDS));
+        Log.i(TAG, name + ": retrying " + pair + " in " + delayMs + " ms (attempt " + attempt + ")");
+    }
+
+    private void cancelRetry(String pair) {
+        ScheduledFuture<?> retry = retries.remove(pair);
+        if (retry != null) retry.cancel(false);
+    }
+
+    private void resetPairs() {
+        for (ScheduledFuture<?> retry : retries.values()) retry.cancel(false);
+        retries.clear();
+        pairs.clear();
+        failures.clear();
+    }
+
+    private boolean sendBatches(boolean subscribe, List<String> symbols) {
+        Sender out = sender;
+        if (out == null) return false;
+        for (int from = 0; from < symbols.size(); from += MAX_PAIRS_PER_FRAME) {
+            List<String> batch = symbols.subList(from, Math.min(symbols.size(), from + MAX_PAIRS_PER_FRAME));
+            if (!out.send(subscribe, batch)) {
+                Log.w(TAG, name + ": could not send " + (subscribe ? "subscribe" : "unsubscribe")
+                        + " frame; waiting for reconnect");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(sender != null,
+                Collections.unmodifiableSet(new LinkedHashSet<>(desired)),
+                Collections.unmodifiableMap(new HashMap<>(pairs)),
+                Collections.unmodifiableMap(new HashMap<>(failures)));
+    }
+}
@@ -0,0 +1,168 @@
+package com.f119589.service;
+
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * Bounded multi-producer / single-consumer hand-off between the socket readers and tick processing.
+ * <p>
+ * A producer (the OkHttp reader thread of one connection shard) only copies the symbol id and price into a
+ * preallocated ring slot. Each symbol occupies at most one pending slot, found through an array indexed by
+ * {@link com.f119589.repository.SymbolRegistry} id: a newer tick for a symbol that is still queued overwrites
+ * the queued price in place (counted as merged), so a burst never grows the queue beyond the number of
+ * distinct symbols. If the ring is full of distinct symbols, the oldest pending tick is evicted (counted
+ * as dropped) so {@link #offer} never blocks the socket.
+ */
+public final class TickIngestBuffer {
+
+    private static final String TAG = "TickIngestBuffer";
+
+    public interface Sink {
+        /**
+         * @param queuedAtMs when the symbol's slot was queued; later ticks merged into it keep this time, so
+         *                   the delay measured from it is the full time the symbol waited.
+         */
+        void onTick(int symbolId, double price, long queuedAtMs);
+    }
+
+    public record Stats(int depth,
+                        int capacity,
+                        int highWater,
+                        long offered,
+                        long merged,
+                        long dropped,
+                        long delivered) {
+    }
+
+    private final Object lock = new Object();
+    private final int capacity;
+
+    // Ring slots (guarded by lock)
+    private final int[] symbols;
+    private final double[] prices;
+    private final long[] queuedAt;
+    // Symbol id -> ring slot + 1; 0 means not pending
+    private int[] pendingSlot = new int[256];
+    private int head;
+    private int size;
+
+    // Consumer-owned batch copy, filled under lock and delivered outside it
+    private final int[] batchSymbols;
+    private final double[] batchPrices;
+    private final long[] batchQueuedAt;
+
+    private boolean consumerWaiting;
+    private boolean closed;
+
+    private int highWater;
+    private long offered;
+    private long merged;
+    private long dropped;
+    private long delivered;
+
+    public TickIngestBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.capacity = capacity;
+        this.symbols = new int[capacity];
+        this.prices = new double[capacity];
+        this.queuedAt = new long[capacity];
+        this.batchSymbols = new int[capacity];
+        this.batchPrices = new double[capacity];
+        this.batchQueuedAt = new long[capacity];
+    }
+
+    /**
+     * Producer side. Never blocks beyond the short critical section.
+     */
+    public void offer(int symbolId, double price) {
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            if (closed) return;
+            offered++;
+
+            if (symbolId >= pendingSlot.length) {
+                pendingSlot = Arrays.copyOf(pendingSlot, Math.max(symbolId + 1, pendingSlot.length * 2));
+            }
+            int slot = pendingSlot[symbolId] - 1;
+            if (slot >= 0) {
+                // Keep the slot's queue time, so lag covers the whole wait rather than the last merge
+                prices[slot] = price;
+                merged++;
+                return;
+            }
+
+            if (size == capacity) {
+                pendingSlot[symbols[head]] = 0;
+                head = (head + 1) % capacity;
+                size--;
+                dropped++;
+            }
+
+            int tail = (head + size) % capacity;
+            symbols[tail] = symbolId;
+            prices[tail] = price;
+            queuedAt[tail] = now;
+            pendingSlot[symbolId] = tail + 1;
+            size++;
+            if (size > highWater) highWater = size;
+
+            if (consumerWaiting) lock.notify();
+        }
+    }
+
+    /**
+     * Consumer side. Blocks until at least one tick is pending (or the buffer is closed), then delivers
+     * everything pending to {@code sink} outside the lock.
+     *
+     * @return false once the buffer has been closed and drained.
+     */
+    public boolean awaitAndDrain(Sink sink) throws InterruptedException {
+        int count;
+        synchronized (lock) {
+            while (size == 0 && !closed) {
+                consumerWaiting = true;
+                try {
+                    lock.wait();
+                } finally {
+                    consumerWaiting = false;
+                }
+            }
+            if (size == 0) return false;
+
+            count = size;
+            for (int i = 0; i < count; i++) {
+                int slot = (head + i) % capacity;
+                batchSymbols[i] = symbols[slot];
+                batchPrices[i] = prices[slot];
+                batchQueuedAt[i] = queuedAt[slot];
+                pendingSlot[symbols[slot]] = 0;
+            }
+            head = 0;
+            size = 0;
+            delivered += count;
+        }
+
+        for (int i = 0; i < count; i++) {
+            try {
+                sink.onTick(batchSymbols[i], batchPrices[i], batchQueuedAt[i]);
+            } catch (Exception ex) {
+                Log.e(TAG, "Tick sink error for symbol id " + batchSymbols[i], ex);
+            }
+        }
+        return true;
+    }
+
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+    }
+
+    public Stats stats() {
+        synchronized (lock) {
+            return new Stats(size, capacity, highWater, offered, merged, dropped, delivered);
+        }
+    }
+}
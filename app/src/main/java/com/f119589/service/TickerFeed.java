@@ -0,0 +1,54 @@
+package com.f119589.service;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * One Kraken ticker protocol: where to connect, how to (un)subscribe and how to decode frames.
+ * <p>
+ * Pairs always use the app's v1 wsName spelling (e.g. "XBT/USD"); a feed translates to and from its wire
+ * format. {@link #decode} keeps reusable state, so every socket gets its own instance and calls it from its
+ * reader thread only.
+ */
+interface TickerFeed {
+
+    String STATUS_SUBSCRIBED = "subscribed";
+    String STATUS_UNSUBSCRIBED = "unsubscribed";
+    String STATUS_ERROR = "error";
+
+    interface Handler {
+        /**
+         * @param serverTimeMs exchange timestamp of the update (epoch millis), or 0 if the protocol has none.
+         */
+        void onTick(String pair, double lastPrice, long serverTimeMs);
+
+        /**
+         * @param status one of {@link #STATUS_SUBSCRIBED}, {@link #STATUS_UNSUBSCRIBED}, {@link #STATUS_ERROR}.
+         */
+        void onSubscriptionStatus(String status, String pair, @Nullable String errorMessage);
+
+        void onEvent(String event, @Nullable String status);
+    }
+
+    FeedProtocol protocol();
+
+    String url();
+
+    /**
+     * @param subscribe true for a subscribe frame, false for unsubscribe.
+     */
+    String subscriptionFrame(boolean subscribe, List<String> pairs);
+
+    String pingFrame();
+
+    /**
+     * Decodes one text frame and reports its content to {@code handler}. Heartbeats and pongs report nothing.
+     */
+    void decode(String text, Handler handler) throws IOException;
+
+    static TickerFeed create(FeedProtocol protocol) {
+        return protocol == FeedProtocol.V2 ? new KrakenFeedV2() : new KrakenFeedV1();
+    }
+}
@@ -0,0 +1,439 @@
+package com.f119589.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.f119589.repository.SymbolRegistry;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+/**
+ * One Kraken WebSocket connection carrying a subset of the watchlist.
+ * <p>
+ * The shard connects while it has pairs assigned and closes when it has none. It reconnects on its own
+ * backoff, so a failure only interrupts its own pairs. Connection state lives on the shared single-threaded
+ * {@code io} executor. Every socket gets a fresh {@link TickerFeed} for the shard's current protocol, which
+ * decodes frames on that socket's reader thread; switching protocol replaces the socket.
+ * <p>
+ * Kraken sends a heartbeat every second on an idle subscribed socket, so silence means a dead connection:
+ * the watchdog pings after {@link #PING_AFTER_MS} without frames and drops the socket after
+ * {@link #DEAD_AFTER_MS}, instead of waiting for TCP to notice. The time from going stale (drop or network
+ * change) to the first live tick is measured and reported.
+ */
+final class WsShard {
+
+    private static final String TAG = "WsShard";
+
+    // Weight of the newest sample in the lag/latency moving averages
+    private static final double LAG_ALPHA = 0.2;
+
+    static final long PING_AFTER_MS = 2_500;
+    static final long DEAD_AFTER_MS = 5_000;
+    private static final long FIRST_RETRY_MS = 250;
+    private static final long MAX_RETRY_MS = 30_000;
+
+    interface RecoveryListener {
+        /**
+         * Socket reader thread: first tick after the shard went stale.
+         */
+        void onFresh(int shard, long recoveryMs, String reason);
+    }
+
+    record Stats(int index,
+                 FeedProtocol protocol,
+                 boolean connected,
+                 int pairs,
+                 long frames,
+                 long ticks,
+                 double ticksPerSec,
+                 long reconnects,
+                 long lastFrameAgeMs,
+                 double ingestLagMs,
+                 long lastRecoveryMs,
+                 long maxRecoveryMs,
+                 double feedLatencyMs) {
+    }
+
+    private final int index;
+    private final String name;
+    private final OkHttpClient client;
+    private final ScheduledExecutorService io;
+    private final TickIngestBuffer ingest;
+    private final SymbolRegistry registry;
+    private final Consumer<Collection<String>> onOpened;
+    private final RecoveryListener recoveryListener;
+    private final SubscriptionManager subscriptions;
+
+    // io-confined
+    private final Set<String> assigned = new HashSet<>();
+    private FeedProtocol protocol;
+    @Nullable
+    private TickerFeed feed;
+    @Nullable
+    private ScheduledFuture<?> pendingReconnect;
+    private int reconnectAttempts;
+    private boolean online = true;
+    private long pingedAtMs;
+    private long statsTicks;
+    private long statsAtMs = SystemClock.elapsedRealtime();
+
+    // Read from other threads (shutdown, stats)
+    @Nullable
+    private volatile WebSocket socket;
+    private volatile boolean connected;
+    private volatile boolean shutdown;
+
+    // Written by the socket reader
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private volatile long lastFrameAtMs;
+    // Non-zero while waiting for the first tick after a drop or network change
+    private final AtomicLong staleSinceMs = new AtomicLong();
+    private volatile String staleReason;
+    private volatile long lastRecoveryMs = -1;
+    private volatile long maxRecoveryMs = -1;
+
+    // Receive time minus exchange timestamp, for protocols that send one; NaN until measured
+    private volatile double feedLatencyMs = Double.NaN;
+
+    // Written by the ingest worker
+    private volatile double ingestLagMs;
+
+    WsShard(int index,
+            OkHttpClient client,
+            ScheduledExecutorService io,
+            TickIngestBuffer ingest,
+            SymbolRegistry registry,
+            FeedProtocol protocol,
+            Consumer<Collection<String>> onOpened,
+            RecoveryListener recoveryListener) {
+        this.index = index;
+        this.name = "ws-" + index;
+        this.client = client;
+        this.io = io;
+        this.ingest = ingest;
+        this.registry = registry;
+        this.protocol = protocol;
+        this.onOpened = onOpened;
+        this.recoveryListener = recoveryListener;
+        this.subscriptions = new SubscriptionManager(io, name);
+    }
+
+    int index() {
+        return index;
+    }
+
+    // ---------------------------------------------------------------------
+    // Assignment (io thread)
+    // ---------------------------------------------------------------------
+
+    boolean hasPairs() {
+        return !assigned.isEmpty();
+    }
+
+    void assign(Set<String> pairs) {
+        assigned.clear();
+        assigned.addAll(pairs);
+        subscriptions.replaceDesired(pairs);
+        updateConnection();
+    }
+
+    void add(String pair) {
+        if (!assigned.add(pair)) return;
+        subscriptions.addDesired(pair);
+        updateConnection();
+    }
+
+    void remove(String pair) {
+        if (!assigned.remove(pair)) return;
+        subscriptions.removeDesired(pair);
+        updateConnection();
+    }
+
+    private void updateConnection() {
+        if (shutdown) return;
+        if (assigned.isEmpty()) {
+            disconnect("no pairs");
+        } else if (socket == null && pendingReconnect == null) {
+            connect();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Connection (io thread)
+    // ---------------------------------------------------------------------
+
+    /**
+     * The default network came back or switched. A socket opened on the old network is not trusted to
+     * survive the handover, so it is replaced right away, skipping any backoff.
+     */
+    void onNetworkAvailable() {
+        online = true;
+        if (shutdown || assigned.isEmpty()) return;
+        markStale("network change");
+        if (pendingReconnect != null) {
+            pendingReconnect.cancel(false);
+            pendingReconnect = null;
+        }
+        reconnectAttempts = 0;
+        WebSocket ws = socket;
+        if (ws != null) {
+            Log.i(TAG, name + ": network changed, replacing socket");
+            reconnects.incrementAndGet();
+            dropSocket(ws);
+        }
+        connect();
+    }
+
+    /**
+     * No network: retrying is pointless until {@link #onNetworkAvailable()}.
+     */
+    void onNetworkLost() {
+        online = false;
+        if (!assigned.isEmpty()) markStale("network loss");
+        if (pendingReconnect != null) {
+            pendingReconnect.cancel(false);
+            pendingReconnect = null;
+        }
+    }
+
+    /**
+     * Moves the shard to another protocol by replacing its socket; subscriptions are replayed on open.
+     */
+    void switchProtocol(FeedProtocol newProtocol) {
+        if (newProtocol == protocol) return;
+        protocol = newProtocol;
+        if (shutdown || assigned.isEmpty()) return;
+        Log.i(TAG, name + ": switching feed to " + newProtocol);
+        markStale("feed switch");
+        if (pendingReconnect != null) {
+            pendingReconnect.cancel(false);
+            pendingReconnect = null;
+        }
+        reconnectAttempts = 0;
+        WebSocket ws = socket;
+        if (ws != null) dropSocket(ws);
+        connect();
+    }
+
+    /**
+     * Called periodically on io.
+     */
+    void checkHeartbeat(long now) {
+        WebSocket ws = socket;
+        TickerFeed current = feed;
+        if (ws == null || current == null || !connected) return;
+        long silentMs = now - lastFrameAtMs;
+        if (silentMs >= DEAD_AFTER_MS) {
+            Log.w(TAG, name + ": no frames for " + silentMs + " ms, dropping socket");
+            markStale("silent socket");
+            dropSocket(ws);
+            scheduleReconnect();
+        } else if (silentMs >= PING_AFTER_MS && pingedAtMs < lastFrameAtMs) {
+            // Anything (pong included) that arrives resets the clock
+            pingedAtMs = now;
+            ws.send(current.pingFrame());
+        }
+    }
+
+    private void markStale(String reason) {
+        if (staleSinceMs.compareAndSet(0, SystemClock.elapsedRealtime())) staleReason = reason;
+    }
+
+    private void connect() {
+        pendingReconnect = null;
+        if (shutdown || assigned.isEmpty() || socket != null) return;
+        TickerFeed socketFeed = TickerFeed.create(protocol);
+        Log.i(TAG, name + ": connecting (" + protocol + ") for " + assigned.size() + " pairs");
+        Request req = new Request.Builder().url(socketFeed.url()).build();
+        feed = socketFeed;
+        socket = client.newWebSocket(req, new WebSocketListener() {
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                io.execute(() -> handleOpen(webSocket, socketFeed));
+            }
+
+            @Override
+            public void onMessage(WebSocket webSocket, String text) {
+                handleMessage(socketFeed, text);
+            }
+
+            @Override
+            public void onFailure(WebSocket webSocket, Throwable t, @Nullable Response response) {
+                Log.w(TAG, name + ": failure: " + t.getMessage());
+                io.execute(() -> handleDropped(webSocket));
+            }
+
+            @Override
+            public void onClosed(WebSocket webSocket, int code, String reason) {
+                Log.i(TAG, name + ": closed: " + code + " " + reason);
+                io.execute(() -> handleDropped(webSocket));
+            }
+        });
+    }
+
+    private void handleOpen(WebSocket webSocket, TickerFeed socketFeed) {
+        // Callbacks of a socket we already replaced or closed are ignored
+        if (webSocket != socket) return;
+        Log.i(TAG, name + ": opened");
+        connected = true;
+        lastFrameAtMs = SystemClock.elapsedRealtime();
+        reconnectAttempts = 0;
+        subscriptions.onConnected((subscribe, pairs) ->
+                webSocket.send(socketFeed.subscriptionFrame(subscribe, pairs)));
+        onOpened.accept(new HashSet<>(assigned));
+    }
+
+    private void handleDropped(WebSocket webSocket) {
+        if (webSocket != socket) return;
+        socket = null;
+        feed = null;
+        connected = false;
+        subscriptions.onDisconnected();
+        markStale("disconnect");
+        scheduleReconnect();
+    }
+
+    /**
+     * Abandons {@code ws} without waiting for a close handshake; its late callbacks are ignored.
+     */
+    private void dropSocket(WebSocket ws) {
+        socket = null;
+        feed = null;
+        connected = false;
+        subscriptions.onDisconnected();
+        ws.cancel();
+    }
+
+    private void scheduleReconnect() {
+        if (shutdown || assigned.isEmpty() || pendingReconnect != null) return;
+        reconnectAttempts++;
+        reconnects.incrementAndGet();
+        // First retry almost at once (most drops are one-off), then back off; offline, only a slow safety
+        // retry in case the connectivity callback never arrives
+        long delayMs = !online ? MAX_RETRY_MS
+                : reconnectAttempts == 1 ? FIRST_RETRY_MS
+                : Math.min(MAX_RETRY_MS, 1_000L << Math.min(5, reconnectAttempts - 2));
+        pendingReconnect = io.schedule(this::connect, delayMs, TimeUnit.MILLISECONDS);
+        Log.i(TAG, name + ": reconnecting in " + delayMs + " ms");
+    }
+
+    private void disconnect(String reason) {
+        if (pendingReconnect != null) {
+            pendingReconnect.cancel(false);
+            pendingReconnect = null;
+        }
+        reconnectAttempts = 0;
+        staleSinceMs.set(0);
+        WebSocket ws = socket;
+        if (ws == null) return;
+        socket = null;
+        feed = null;
+        connected = false;
+        subscriptions.onDisconnected();
+        ws.close(1000, reason);
+    }
+
+    /**
+     * Closes the socket for good. Safe to call from any thread.
+     */
+    void shutdown() {
+        shutdown = true;
+        WebSocket ws = socket;
+        if (ws != null) ws.close(1000, "app stop");
+    }
+
+    // ---------------------------------------------------------------------
+    // Frames (socket reader thread)
+    // ---------------------------------------------------------------------
+
+    private void handleMessage(TickerFeed socketFeed, String text) {
+        frames.incrementAndGet();
+        lastFrameAtMs = SystemClock.elapsedRealtime();
+        try {
+            socketFeed.decode(text, frameHandler);
+        } catch (Exception ex) {
+            Log.e(TAG, name + ": handleMessage error: " + text, ex);
+        }
+    }
+
+    private final TickerFeed.Handler frameHandler = new TickerFeed.Handler() {
+        @Override
+        public void onTick(String pair, double lastPrice, long serverTimeMs) {
+            ticks.incrementAndGet();
+            if (staleSinceMs.get() != 0) onFirstTickAfterStale();
+            // The one string lookup per tick; everything downstream works on the id
+            ingest.offer(registry.idOf(pair), lastPrice);
+            if (serverTimeMs > 0) recordFeedLatency(System.currentTimeMillis() - serverTimeMs);
+        }
+
+        @Override
+        public void onSubscriptionStatus(String status, String pair, @Nullable String errorMessage) {
+            subscriptions.onStatus(status, pair, errorMessage);
+        }
+
+        @Override
+        public void onEvent(String event, @Nullable String status) {
+            Log.d(TAG, name + ": event " + event + " status=" + status);
+        }
+    };
+
+    private void onFirstTickAfterStale() {
+        long since = staleSinceMs.getAndSet(0);
+        if (since == 0) return;
+        long recoveryMs = SystemClock.elapsedRealtime() - since;
+        lastRecoveryMs = recoveryMs;
+        if (recoveryMs > maxRecoveryMs) maxRecoveryMs = recoveryMs;
+        Log.i(TAG, name + ": fresh prices " + recoveryMs + " ms after " + staleReason);
+        recoveryListener.onFresh(index, recoveryMs, staleReason);
+    }
+
+    // ---------------------------------------------------------------------
+    // Metrics
+    // ---------------------------------------------------------------------
+
+    private void recordFeedLatency(long latencyMs) {
+        double prev = feedLatencyMs;
+        feedLatencyMs = Double.isNaN(prev) ? latencyMs : prev + LAG_ALPHA * (latencyMs - prev);
+    }
+
+    /**
+     * Ingest worker only: time a tick of this shard spent queued before being applied.
+     */
+    void recordIngestLag(long lagMs) {
+        double prev = ingestLagMs;
+        ingestLagMs = prev == 0 ? lagMs : prev + LAG_ALPHA * (lagMs - prev);
+    }
+
+    /**
+     * io thread only; the tick rate covers the time since the previous call.
+     */
+    Stats stats() {
+        long now = SystemClock.elapsedRealtime();
+        long totalTicks = ticks.get();
+        long elapsedMs = Math.max(1, now - statsAtMs);
+        double rate = (totalTicks - statsTicks) * 1000.0 / elapsedMs;
+        statsTicks = totalTicks;
+        statsAtMs = now;
+        long last = lastFrameAtMs;
+        return new Stats(index, protocol, connected, assigned.size(), frames.get(), totalTicks, rate,
+                reconnects.get(), last == 0 ? -1 : now - last, ingestLagMs, lastRecoveryMs, maxRecoveryMs,
+                feedLatencyMs);
+    }
+}
@@ -9,13 +9,20 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.f119589.R;
+import com.f119589.dto.TickEvent;
 import com.f119589.repository.CryptoRepository;
+import com.f119589.repository.TaskScheduler;
 import com.google.android.material.appbar.MaterialToolbar;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
 public class PairDetailActivity extends AppCompatActivity {
 
     private static final String EXTRA_SYMBOL = "symbol";
     private static final String EXTRA_DISPLAY = "display";
+    private static final long TICK_DELIVERY_INTERVAL_MS = 500;
 
     public static void launch(Context ctx, String wsSymbol, String display) {
         Intent i = new Intent(ctx, PairDetailActivity.class);
@@ -48,8 +55,18 @@ public class PairDetailActivity extends AppCompatActivity {
         toolbar.setSubtitle(symbol != null ? symbol : "");
 
         if (symbol != null) {
-            // Optionally, fetch fresh 24h OHLC for this pair for a larger chart
-            CryptoRepository.get(this).fetchAndCacheOhlc24h(symbol);
+            CryptoRepository repo = CryptoRepository.get(this);
+            // Fetch fresh 24h OHLC for this pair ahead of any list prefetching; dropped if the screen closes first
+            repo.fetchAndCacheOhlc24h(symbol, TaskScheduler.Priority.USER_VISIBLE).bindTo(this);
+
+            // Show the live price next to the symbol while the screen is open
+            repo.ticks().observe(this, Collections.singleton(symbol), TICK_DELIVERY_INTERVAL_MS,
+                    (List<TickEvent> latest) -> {
+                        TickEvent last = latest.get(latest.size() - 1);
+                        String live = String.format(Locale.US, "%s · %s", symbol, last.price());
+                        subtitle.setText(live);
+                        toolbar.setSubtitle(live);
+                    });
         }
     }
 }
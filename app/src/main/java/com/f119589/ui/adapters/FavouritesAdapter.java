@@ -1,6 +1,7 @@
 package com.f119589.ui.adapters;
 
 import android.graphics.Color;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,82 +9,210 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.f119589.R;
 import com.f119589.data.entity.FavouritePair;
-import com.f119589.ui.util.SparklineBinder;
-import com.f119589.ui.util.SparklineParser;
-import com.github.mikephil.charting.charts.LineChart;
+import com.f119589.data.entity.LivePrice;
+import com.f119589.repository.SymbolRegistry;
+import com.f119589.repository.TickTable;
+import com.f119589.ui.model.FavouriteRow;
+import com.f119589.ui.util.SparklineCache;
+import com.f119589.ui.util.SparklineSeries;
+import com.f119589.ui.util.SparklineView;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 public class FavouritesAdapter extends RecyclerView.Adapter<FavouritesAdapter.VH> {
     private static final String PAYLOAD_PRICE_ONLY = "price_only";
+    private static final String PAYLOAD_SPARKLINE_ONLY = "sparkline_only";
+    // Matches the 5-minute OHLC interval the sparkline is built from
+    private static final long LIVE_POINT_INTERVAL_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final DiffUtil.ItemCallback<FavouriteRow> DIFF = new DiffUtil.ItemCallback<>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull FavouriteRow oldItem, @NonNull FavouriteRow newItem) {
+            return oldItem.symbolId() == newItem.symbolId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull FavouriteRow oldItem, @NonNull FavouriteRow newItem) {
+            return oldItem.sameContent(newItem);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull FavouriteRow oldItem, @NonNull FavouriteRow newItem) {
+            // Price changes never come through here (see livePrices); null means full rebind.
+            return oldItem.sameHeader(newItem) ? PAYLOAD_SPARKLINE_ONLY : null;
+        }
+    };
 
     public interface OnFavoriteClick {
-        void onOpenDetails(FavouritePair e);
+        void onOpenDetails(FavouriteRow row);
 
-        void onRemove(FavouritePair e);
+        void onRemove(FavouriteRow row);
     }
 
     private final OnFavoriteClick listener;
-    private final List<FavouritePair> items = new ArrayList<>();
+    private final AsyncListDiffer<FavouriteRow> differ = new AsyncListDiffer<>(this, DIFF);
+    private final SparklineCache sparklines = SparklineCache.get();
+
+    // Last measured sparkline width; drives the downsampling target
+    private static final int DEFAULT_SPARKLINE_WIDTH_PX = 450;
+    private int sparklineWidthPx = DEFAULT_SPARKLINE_WIDTH_PX;
 
-    public FavouritesAdapter(OnFavoriteClick listener) {
+    private final SymbolRegistry symbols;
+
+    // Live price overlay indexed by symbol id; fed by the live_prices table and by ticks
+    private LivePrice[] livePrices = new LivePrice[64];
+
+    // symbol id -> adapter position + 1 (0 = not listed), rebuilt on every submit
+    private int[] positionById = new int[64];
+
+    // Ticks received since the last frame, latest price per symbol id; applied once per vsync
+    private final TickTable pendingTicks = new TickTable();
+    private final Choreographer.FrameCallback applyTicksCallback = frameTimeNanos -> applyPendingTicks();
+    private boolean frameScheduled;
+
+    public FavouritesAdapter(OnFavoriteClick listener, SymbolRegistry symbols) {
         this.listener = listener;
+        this.symbols = symbols;
+        differ.addListListener((previous, current) -> rebuildIndex());
     }
 
+    /**
+     * Diffing runs on a background thread; the list and the symbol index are swapped on the main thread
+     * once the result is ready.
+     */
     public void submit(List<FavouritePair> list) {
-        List<FavouritePair> oldItems = new ArrayList<>(items);
-        List<FavouritePair> newItems = list != null ? new ArrayList<>(list) : new ArrayList<>();
-        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
-            @Override
-            public int getOldListSize() {
-                return oldItems.size();
+        List<FavouriteRow> rows = new ArrayList<>(list != null ? list.size() : 0);
+        if (list != null) {
+            for (FavouritePair e : list) {
+                FavouriteRow row = FavouriteRow.from(e, symbols.idOf(e.getSymbol()));
+                rows.add(row);
+                // Decode new OHLC data in the background; binding only looks the result up
+                sparklines.prefetch(row.symbol(), row.ohlc24hUpdatedAt(), row.ohlc24hBlob(),
+                        sparklineWidthPx, this::onSparklineLoaded);
             }
+        }
+        differ.submitList(rows);
+    }
 
-            @Override
-            public int getNewListSize() {
-                return newItems.size();
-            }
+    private void onSparklineLoaded(String symbol) {
+        int pos = positionOf(symbols.find(symbol));
+        if (pos >= 0) notifyItemChanged(pos, PAYLOAD_SPARKLINE_ONLY);
+    }
 
-            @Override
-            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-                return oldItems.get(oldItemPosition).getSymbol()
-                        .equals(newItems.get(newItemPosition).getSymbol());
+    /**
+     * Applies persisted live prices; only rows whose price or change actually moved are rebound.
+     * <p>
+     * The change, low and high columns are owned by the repository's rolling window and always taken from
+     * the row. Only the price is gated on time, so a newer local tick isn't rolled back by an older write.
+     */
+    public void submitLivePrices(List<LivePrice> list) {
+        if (list == null) return;
+        for (LivePrice p : list) {
+            int id = symbols.idOf(p.getSymbol());
+            LivePrice current = live(id);
+            LivePrice merged = p;
+            if (current != null && current.getLastUpdated() > p.getLastUpdated()) {
+                double price = current.getLastPrice();
+                merged = new LivePrice(p.getSymbol(), price, current.getLastUpdated(), p.getChange24hPercent(),
+                        widenLow(p.getLow24h(), price), widenHigh(p.getHigh24h(), price));
             }
+            if (merged.equals(current)) continue;
+            setLive(id, merged);
+            int pos = positionOf(id);
+            if (pos >= 0) notifyItemChanged(pos, PAYLOAD_PRICE_ONLY);
+        }
+    }
 
-            @Override
-            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-                return oldItems.get(oldItemPosition).equals(newItems.get(newItemPosition));
+    private void rebuildIndex() {
+        Arrays.fill(positionById, 0);
+        List<FavouriteRow> rows = differ.getCurrentList();
+        for (int i = 0; i < rows.size(); i++) {
+            int id = rows.get(i).symbolId();
+            if (id >= positionById.length) {
+                positionById = Arrays.copyOf(positionById, Math.max(id + 1, positionById.length * 2));
             }
-        });
-        items.clear();
-        items.addAll(newItems);
-        diff.dispatchUpdatesTo(this);
+            positionById[id] = i + 1;
+        }
+    }
+
+    private int positionOf(int symbolId) {
+        return symbolId >= 0 && symbolId < positionById.length ? positionById[symbolId] - 1 : -1;
+    }
+
+    @Nullable
+    private LivePrice live(int symbolId) {
+        return symbolId < livePrices.length ? livePrices[symbolId] : null;
+    }
+
+    private void setLive(int symbolId, LivePrice price) {
+        if (symbolId >= livePrices.length) {
+            livePrices = Arrays.copyOf(livePrices, Math.max(symbolId + 1, livePrices.length * 2));
+        }
+        livePrices[symbolId] = price;
     }
 
     /**
      * Optional real-time visual nudge before Room emits the updated row.
+     * Must be called on the main thread; ticks are buffered and applied on the next display frame,
+     * so each row is rebound at most once per frame.
      */
-    public void pushLiveTick(String wsSymbol, double price) {
-        for (int i = 0; i < items.size(); i++) {
-            FavouritePair e = items.get(i);
-            if (e.getSymbol().equals(wsSymbol)) {
-                e.setLastPrice(price);
-                Double baseline = e.getOhlc24hFirstClose();
-                if (baseline != null && baseline != 0d) {
-                    double change = ((price - baseline) / baseline) * 100.0;
-                    e.setChange24hPercent(change);
-                }
-                notifyItemChanged(i, PAYLOAD_PRICE_ONLY);
-                break;
-            }
+    public void pushLiveTick(int symbolId, double price) {
+        pendingTicks.put(symbolId, price, 0L);
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(applyTicksCallback);
+        }
+    }
+
+    private void applyPendingTicks() {
+        frameScheduled = false;
+        for (int i = 0; i < pendingTicks.size(); i++) {
+            int id = pendingTicks.id(i);
+            int pos = positionOf(id);
+            if (pos < 0) continue;
+            FavouriteRow row = differ.getCurrentList().get(pos);
+            double price = pendingTicks.price(i);
+            LivePrice live = live(id);
+            // Change % is owned by the repository's rolling window; only widen low/high locally
+            Double change = live != null ? live.getChange24hPercent() : null;
+            Double low = widenLow(live != null ? live.getLow24h() : null, price);
+            Double high = widenHigh(live != null ? live.getHigh24h() : null, price);
+            setLive(id, new LivePrice(row.symbol(), price, System.currentTimeMillis(), change, low, high));
+            notifyItemChanged(pos, PAYLOAD_PRICE_ONLY);
         }
+        pendingTicks.clear();
+    }
+
+    @Nullable
+    private static Double widenLow(@Nullable Double low, double price) {
+        return low != null && price < low ? Double.valueOf(price) : low;
+    }
+
+    @Nullable
+    private static Double widenHigh(@Nullable Double high, double price) {
+        return high != null && price > high ? Double.valueOf(price) : high;
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(applyTicksCallback);
+            frameScheduled = false;
+        }
+        pendingTicks.clear();
     }
 
     @NonNull
@@ -96,23 +225,38 @@ public class FavouritesAdapter extends RecyclerView.Adapter<FavouritesAdapter.VH
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int pos) {
-        FavouritePair e = items.get(pos);
-        h.bindFull(e, listener);
+        FavouriteRow row = differ.getCurrentList().get(pos);
+        h.bindFull(row, live(row.symbolId()), listener);
+        int measured = h.sparklineWidthPx();
+        if (measured > 0) sparklineWidthPx = measured;
     }
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int pos, @NonNull List<Object> payloads) {
-        if (!payloads.isEmpty() && payloads.contains(PAYLOAD_PRICE_ONLY)) {
-            FavouritePair e = items.get(pos);
-            h.bindPriceOnly(e);
-            return; // skip full bind
+        if (payloads.isEmpty()) {
+            super.onBindViewHolder(h, pos, payloads);
+            return;
         }
-        super.onBindViewHolder(h, pos, payloads);
+        boolean price = false;
+        boolean sparkline = false;
+        for (Object payload : payloads) {
+            if (PAYLOAD_PRICE_ONLY.equals(payload)) {
+                price = true;
+            } else if (PAYLOAD_SPARKLINE_ONLY.equals(payload)) {
+                sparkline = true;
+            } else {
+                super.onBindViewHolder(h, pos, payloads);
+                return;
+            }
+        }
+        FavouriteRow row = differ.getCurrentList().get(pos);
+        if (sparkline) h.bindSparkline(row);
+        if (price || sparkline) h.bindPriceOnly(live(row.symbolId())); // skip full bind
     }
 
     @Override
     public int getItemCount() {
-        return items.size();
+        return differ.getCurrentList().size();
     }
 
     static class VH extends RecyclerView.ViewHolder {
@@ -122,9 +266,12 @@ public class FavouritesAdapter extends RecyclerView.Adapter<FavouritesAdapter.VH
         private final TextView txtChange;
         private final TextView txtLowHigh;
         private final TextView txtBadge;
-        private final LineChart chart;
+        private final SparklineView chart;
         private final ImageButton btnRemove;
 
+        // Time of the newest point on the sparkline; live prices extend it one candle at a time
+        private long lastPointAt;
+
         VH(@NonNull View v) {
             super(v);
             txtName = v.findViewById(R.id.txtName);
@@ -137,22 +284,41 @@ public class FavouritesAdapter extends RecyclerView.Adapter<FavouritesAdapter.VH
             btnRemove = v.findViewById(R.id.btnRemove);
         }
 
-        void bindFull(FavouritePair e, OnFavoriteClick listener) {
-            String name = e.getDisplayName();
-            txtName.setText(name != null ? name : e.getSymbol());
-            txtSub.setText(e.getSymbol());
-            bindPriceOnly(e);
-            txtBadge.setText(buildBadge(e));
-            SparklineParser.ParseResult parsed = SparklineParser.parseWithMinMax(e.getOhlc24hJson());
-            txtLowHigh.setText(buildLowHigh(parsed.getMinMax()));
-            SparklineBinder.bind(chart, parsed.getEntries());
-            btnRemove.setOnClickListener(v -> listener.onRemove(e));
-            itemView.setOnClickListener(v -> listener.onOpenDetails(e));
+        void bindFull(FavouriteRow row, LivePrice live, OnFavoriteClick listener) {
+            String name = row.displayName();
+            txtName.setText(name != null ? name : row.symbol());
+            txtSub.setText(row.symbol());
+            txtBadge.setText(buildBadge(row));
+            bindSparkline(row);
+            bindPriceOnly(live);
+            btnRemove.setOnClickListener(v -> listener.onRemove(row));
+            itemView.setOnClickListener(v -> listener.onOpenDetails(row));
         }
 
-        void bindPriceOnly(FavouritePair e) {
-            txtPrice.setText(e.getLastPrice() > 0 ? String.valueOf(e.getLastPrice()) : "—");
-            bindChange(txtChange, e.getChange24hPercent());
+        int sparklineWidthPx() {
+            return chart.getWidth();
+        }
+
+        void bindSparkline(FavouriteRow row) {
+            SparklineSeries series = SparklineCache.get().peek(row.symbol(), row.ohlc24hUpdatedAt());
+            if (series == null) series = SparklineSeries.EMPTY; // rebound once the decode lands
+            txtLowHigh.setText(buildLowHigh(series.getLow(), series.getHigh()));
+            chart.setSeries(series); // samples to its own width
+            lastPointAt = row.ohlc24hUpdatedAt();
+        }
+
+        void bindPriceOnly(LivePrice live) {
+            double price = live != null ? live.getLastPrice() : 0d;
+            txtPrice.setText(price > 0 ? String.valueOf(price) : "—");
+            bindChange(txtChange, live != null ? live.getChange24hPercent() : null);
+            if (live != null && live.getLow24h() != null && live.getHigh24h() != null) {
+                // Exact rolling 24h range; the sparkline's close-only range is the fallback
+                txtLowHigh.setText(buildLowHigh(live.getLow24h(), live.getHigh24h()));
+            }
+            if (price > 0 && lastPointAt > 0 && live.getLastUpdated() - lastPointAt >= LIVE_POINT_INTERVAL_MS) {
+                chart.appendPoint((float) price);
+                lastPointAt = live.getLastUpdated();
+            }
         }
     }
 
@@ -168,10 +334,10 @@ public class FavouritesAdapter extends RecyclerView.Adapter<FavouritesAdapter.VH
         view.setTextColor(color);
     }
 
-    private static String buildBadge(FavouritePair pair) {
-        String display = pair.getDisplayName();
+    private static String buildBadge(FavouriteRow row) {
+        String display = row.displayName();
         if (display == null || display.isEmpty()) {
-            display = pair.getSymbol();
+            display = row.symbol();
         }
         if (display.isEmpty()) {
             return "—";
@@ -187,9 +353,9 @@ public class FavouritesAdapter extends RecyclerView.Adapter<FavouritesAdapter.VH
         return display.toUpperCase(Locale.US);
     }
 
-    private static String buildLowHigh(SparklineParser.MinMax mm) {
-        String low = formatPrice(mm.getLow());
-        String high = formatPrice(mm.getHigh());
+    private static String buildLowHigh(Double lowValue, Double highValue) {
+        String low = formatPrice(lowValue);
+        String high = formatPrice(highValue);
         return String.format(Locale.US, "24h L: %s  H: %s", low, high);
     }
 
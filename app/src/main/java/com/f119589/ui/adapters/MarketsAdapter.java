@@ -1,5 +1,7 @@
 package com.f119589.ui.adapters;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,15 +9,19 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.f119589.R;
 import com.f119589.dto.AssetPairDto;
+import com.f119589.ui.util.MarketSearchIndex;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MarketsAdapter extends RecyclerView.Adapter<MarketsAdapter.VH> {
 
@@ -25,69 +31,91 @@ public class MarketsAdapter extends RecyclerView.Adapter<MarketsAdapter.VH> {
         void onOpenDetails(AssetPairDto pair);
     }
 
+    // Short enough to feel instant, long enough to skip intermediate keystrokes
+    private static final long SEARCH_DEBOUNCE_MS = 120;
+
+    // Index builds and query evaluation; single thread so results come back in submission order
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private static final DiffUtil.ItemCallback<AssetPairDto> DIFF = new DiffUtil.ItemCallback<>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull AssetPairDto oldItem, @NonNull AssetPairDto newItem) {
+            return Objects.equals(oldItem.wsName(), newItem.wsName());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull AssetPairDto oldItem, @NonNull AssetPairDto newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
     private final OnMarketClick listener;
-    private final List<AssetPairDto> items = new ArrayList<>();
-    private final List<AssetPairDto> filteredItems = new ArrayList<>();
+    // Diffs on AsyncListDiffer's background executor
+    private final AsyncListDiffer<AssetPairDto> differ = new AsyncListDiffer<>(this, DIFF);
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final Runnable runSearch = this::runSearch;
+
+    // Main-thread state
+    private List<AssetPairDto> catalog;
+    private MarketSearchIndex index = MarketSearchIndex.EMPTY;
     private String currentQuery = "";
+    private int generation;
 
     public MarketsAdapter(OnMarketClick listener) {
         this.listener = listener;
     }
 
+    /**
+     * Rebuilds the search index in the background (only when the catalog instance changed) and
+     * re-applies the current query to it.
+     */
     public void submit(List<AssetPairDto> list) {
-        items.clear();
-        if (list != null) items.addAll(list);
-        applyFilter();
+        if (list == catalog) return;
+        catalog = list;
+        int gen = ++generation;
+        String query = currentQuery;
+        SEARCH_EXECUTOR.execute(() -> {
+            MarketSearchIndex built = MarketSearchIndex.build(list);
+            List<AssetPairDto> result = built.search(query);
+            main.post(() -> {
+                index = built;
+                if (gen == generation) {
+                    differ.submitList(result);
+                } else {
+                    runSearch(); // a query ran against the old index meanwhile
+                }
+            });
+        });
     }
 
+    /**
+     * Debounced; the query is evaluated off the main thread against the current index.
+     */
     public void filter(String query) {
-        currentQuery = query != null ? query.trim().toLowerCase() : "";
-        applyFilter();
+        String normalised = MarketSearchIndex.normalise(query);
+        if (normalised.equals(currentQuery)) return;
+        currentQuery = normalised;
+        main.removeCallbacks(runSearch);
+        main.postDelayed(runSearch, SEARCH_DEBOUNCE_MS);
     }
 
-    private void applyFilter() {
-        List<AssetPairDto> oldItems = new ArrayList<>(filteredItems);
-        List<AssetPairDto> newItems = new ArrayList<>();
-        if (currentQuery.isEmpty()) {
-            newItems.addAll(items);
-        } else {
-            for (AssetPairDto dto : items) {
-                String display = dto.display() != null ? dto.display().toLowerCase() : "";
-                String ws = dto.wsName() != null ? dto.wsName().toLowerCase() : "";
-                if (display.contains(currentQuery) || ws.contains(currentQuery)) {
-                    newItems.add(dto);
-                }
-            }
-        }
-        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
-            @Override
-            public int getOldListSize() {
-                return oldItems.size();
-            }
-
-            @Override
-            public int getNewListSize() {
-                return newItems.size();
-            }
-
-            @Override
-            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
-                String oldWs = oldItems.get(oldItemPosition).wsName();
-                String newWs = newItems.get(newItemPosition).wsName();
-                if (oldWs == null) {
-                    return newWs == null;
-                }
-                return oldWs.equals(newWs);
-            }
-
-            @Override
-            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
-                return oldItems.get(oldItemPosition).equals(newItems.get(newItemPosition));
-            }
+    private void runSearch() {
+        int gen = ++generation;
+        MarketSearchIndex searchIndex = index;
+        String query = currentQuery;
+        SEARCH_EXECUTOR.execute(() -> {
+            List<AssetPairDto> result = searchIndex.search(query);
+            main.post(() -> {
+                // A newer query or catalog superseded this one while it was running
+                if (gen == generation) differ.submitList(result);
+            });
         });
-        filteredItems.clear();
-        filteredItems.addAll(newItems);
-        diff.dispatchUpdatesTo(this);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        main.removeCallbacks(runSearch);
     }
 
     @NonNull
@@ -99,13 +127,13 @@ public class MarketsAdapter extends RecyclerView.Adapter<MarketsAdapter.VH> {
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int pos) {
-        AssetPairDto p = filteredItems.get(pos);
+        AssetPairDto p = differ.getCurrentList().get(pos);
         h.bind(p, listener);
     }
 
     @Override
     public int getItemCount() {
-        return filteredItems.size();
+        return differ.getCurrentList().size();
     }
 
     static class VH extends RecyclerView.ViewHolder {
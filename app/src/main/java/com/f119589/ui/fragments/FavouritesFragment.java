@@ -17,12 +17,15 @@ import com.f119589.R;
 import com.f119589.data.entity.FavouritePair;
 import com.f119589.dto.TickEvent;
 import com.f119589.repository.CryptoRepository;
+import com.f119589.repository.TaskScheduler;
+import com.f119589.repository.TickBus;
 import com.f119589.ui.PairDetailActivity;
 import com.f119589.ui.adapters.FavouritesAdapter;
+import com.f119589.ui.model.FavouriteRow;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 public class FavouritesFragment extends Fragment implements FavouritesAdapter.OnFavoriteClick {
@@ -31,9 +34,7 @@ public class FavouritesFragment extends Fragment implements FavouritesAdapter.On
     private FavouritesAdapter adapter;
 
     private static final long SPARKLINE_MAX_AGE_MS = TimeUnit.MINUTES.toMillis(15);
-    private static final long SPARKLINE_REQUEST_COOLDOWN_MS = TimeUnit.SECONDS.toMillis(30);
-
-    private final Map<String, Long> sparklineRequestedAt = new HashMap<>();
+    private static final long TICK_DELIVERY_INTERVAL_MS = 100;
 
     @Nullable
     @Override
@@ -51,46 +52,52 @@ public class FavouritesFragment extends Fragment implements FavouritesAdapter.On
         RecyclerView rv = v.findViewById(R.id.recyclerFavorites);
         rv.setLayoutManager(new LinearLayoutManager(requireContext()));
         rv.addItemDecoration(new DividerItemDecoration(requireContext(), DividerItemDecoration.VERTICAL));
-        adapter = new FavouritesAdapter(this);
+        adapter = new FavouritesAdapter(this, repo.symbols());
         rv.setAdapter(adapter);
 
+        // Persisted live prices: narrow table, doesn't re-emit the favourites list
+        repo.livePrices().observe(getViewLifecycleOwner(), adapter::submitLivePrices);
+
+        // Live ticks for the current favourites only, conflated per symbol
+        TickBus.Subscription ticks = repo.ticks().observe(getViewLifecycleOwner(),
+                new HashSet<>(), TICK_DELIVERY_INTERVAL_MS, (List<TickEvent> latest) -> {
+                    for (TickEvent event : latest) {
+                        adapter.pushLiveTick(event.symbolId(), event.price());
+                    }
+                });
+
         LiveData<List<FavouritePair>> live = repo.favorites();
         live.observe(getViewLifecycleOwner(), (List<FavouritePair> list) -> {
             // 1) Update UI
             adapter.submit(list);
 
+            Set<String> symbols = new HashSet<>();
+            for (FavouritePair e : list) symbols.add(e.getSymbol());
+            ticks.setSymbols(symbols);
+
             long now = System.currentTimeMillis();
             for (FavouritePair e : list) {
-                boolean missing = e.getOhlc24hJson() == null || e.getOhlc24hJson().isEmpty();
+                boolean missing = e.getOhlc24hBlob() == null || e.getOhlc24hBlob().length == 0;
                 boolean stale = !missing && e.getOhlc24hUpdatedAt() > 0
                         && (now - e.getOhlc24hUpdatedAt()) > SPARKLINE_MAX_AGE_MS;
                 if (missing || stale) {
-                    Long lastRequested = sparklineRequestedAt.get(e.getSymbol());
-                    if (lastRequested == null || (now - lastRequested) > SPARKLINE_REQUEST_COOLDOWN_MS) {
-                        repo.fetchAndCacheOhlc24h(e.getSymbol());
-                        sparklineRequestedAt.put(e.getSymbol(), now);
-                    }
-                } else {
-                    sparklineRequestedAt.remove(e.getSymbol());
+                    // Coalesced and rate-limited per symbol by the repository; an empty row outranks a stale one
+                    repo.fetchAndCacheOhlc24h(e.getSymbol(), missing
+                                    ? TaskScheduler.Priority.VISIBLE_ROW
+                                    : TaskScheduler.Priority.BACKGROUND)
+                            .bindTo(getViewLifecycleOwner());
                 }
             }
         });
-
-        // Observe tick events for immediate UI updates
-        repo.tickEvents().observe(getViewLifecycleOwner(), (TickEvent event) -> {
-            if (event != null) {
-                adapter.pushLiveTick(event.symbol(), event.price());
-            }
-        });
     }
 
     @Override
-    public void onOpenDetails(FavouritePair e) {
-        PairDetailActivity.launch(requireContext(), e.getSymbol(), e.getDisplayName() != null ? e.getDisplayName() : e.getSymbol());
+    public void onOpenDetails(FavouriteRow row) {
+        PairDetailActivity.launch(requireContext(), row.symbol(), row.displayName() != null ? row.displayName() : row.symbol());
     }
 
     @Override
-    public void onRemove(FavouritePair e) {
-        repo.removeFavorite(requireContext(), e.getSymbol());
+    public void onRemove(FavouriteRow row) {
+        repo.removeFavorite(requireContext(), row.symbol());
     }
 }
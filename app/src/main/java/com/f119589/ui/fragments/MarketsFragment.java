@@ -22,14 +22,12 @@ import com.f119589.repository.CryptoRepository;
 import com.f119589.ui.PairDetailActivity;
 import com.f119589.ui.adapters.MarketsAdapter;
 
-import java.util.List;
 import java.util.Locale;
 
 public class MarketsFragment extends Fragment implements MarketsAdapter.OnMarketClick {
 
     private CryptoRepository repo;
     private MarketsAdapter adapter;
-    private String currentQuery = "";
     private TextView txtSnapshotMcap;
     private TextView txtSnapshotVolume;
     private TextView txtSnapshotBtcDom;
@@ -80,8 +78,7 @@ public class MarketsFragment extends Fragment implements MarketsAdapter.OnMarket
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                currentQuery = newText != null ? newText : "";
-                adapter.filter(currentQuery);
+                adapter.filter(newText);
                 return true;
             }
         });
@@ -93,12 +90,8 @@ public class MarketsFragment extends Fragment implements MarketsAdapter.OnMarket
         rv.setAdapter(adapter);
 
         // Observe markets list
-        repo.markets().observe(getViewLifecycleOwner(), (List<AssetPairDto> list) -> {
-            adapter.submit(list);
-            if (!currentQuery.isEmpty()) {
-                adapter.filter(currentQuery);
-            }
-        });
+        // The adapter re-applies its current query to every new catalog
+        repo.markets().observe(getViewLifecycleOwner(), adapter::submit);
         repo.marketSnapshot().observe(getViewLifecycleOwner(), this::renderSnapshot);
 
         // Fetch latest
@@ -0,0 +1,46 @@
+package com.f119589.ui.model;
+
+import com.f119589.data.entity.FavouritePair;
+
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of a favourite as shown in the list.
+ * <p>
+ * {@code version} is a cheap hash of the fields that affect rendering (never the OHLC blob itself;
+ * {@code ohlc24hUpdatedAt} stands in for it), so diffing never compares the blob bytes. {@code symbolId} is the
+ * pair's {@link com.f119589.repository.SymbolRegistry} id, used to match live ticks without string compares.
+ */
+public record FavouriteRow(int symbolId,
+                           String symbol,
+                           String displayName,
+                           byte[] ohlc24hBlob,
+                           long ohlc24hUpdatedAt,
+                           Double ohlc24hFirstClose,
+                           int version) {
+
+    public static FavouriteRow from(FavouritePair e, int symbolId) {
+        return new FavouriteRow(
+                symbolId,
+                e.getSymbol(),
+                e.getDisplayName(),
+                e.getOhlc24hBlob(),
+                e.getOhlc24hUpdatedAt(),
+                e.getOhlc24hFirstClose(),
+                Objects.hash(e.getDisplayName(), e.getOhlc24hUpdatedAt(), e.getOhlc24hFirstClose())
+        );
+    }
+
+    public boolean sameHeader(FavouriteRow other) {
+        return Objects.equals(displayName, other.displayName);
+    }
+
+    public boolean sameSparkline(FavouriteRow other) {
+        return ohlc24hUpdatedAt == other.ohlc24hUpdatedAt
+                && Objects.equals(ohlc24hFirstClose, other.ohlc24hFirstClose);
+    }
+
+    public boolean sameContent(FavouriteRow other) {
+        return version == other.version && sameHeader(other) && sameSparkline(other);
+    }
+}
@@ -0,0 +1,180 @@
+package com.f119589.ui.util;
+
+import com.f119589.dto.AssetPairDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable search index over the Markets catalog, built once per catalog (off the main thread).
+ * <p>
+ * Every pair gets one pre-normalised key: its lowercased display and wsName plus alias spellings
+ * (BTC/XBT, DOGE/XDG), separated so a match never spans two of them. Posting lists of 1- to 3-grams
+ * narrow a query to a few candidates, which are verified with a substring check. Matches that start a
+ * key segment (prefix matches, e.g. "eth" in "eth/usd") rank before inner matches; within each group the
+ * catalog order is kept.
+ */
+public final class MarketSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+    private static final char SEPARATOR = '\u0000';
+
+    // Kraken vs. common asset codes, both directions; applied to whole segments ("xbt/usd" -> "btc/usd")
+    private static final Map<String, String> ALIASES = Map.of(
+            "xbt", "btc",
+            "btc", "xbt",
+            "xdg", "doge",
+            "doge", "xdg"
+    );
+
+    public static final MarketSearchIndex EMPTY = new MarketSearchIndex(Collections.emptyList());
+
+    private final List<AssetPairDto> pairs;
+    private final String[] keys;
+    private final Map<String, int[]> postings;
+
+    private MarketSearchIndex(List<AssetPairDto> pairs) {
+        this.pairs = pairs;
+        this.keys = new String[pairs.size()];
+        Map<String, IntList> building = new HashMap<>();
+        for (int id = 0; id < pairs.size(); id++) {
+            String key = buildKey(pairs.get(id));
+            keys[id] = key;
+            addGrams(building, key, id);
+        }
+        this.postings = new HashMap<>(building.size() * 2);
+        for (Map.Entry<String, IntList> e : building.entrySet()) {
+            postings.put(e.getKey(), e.getValue().toArray());
+        }
+    }
+
+    public static MarketSearchIndex build(List<AssetPairDto> pairs) {
+        if (pairs == null || pairs.isEmpty()) return EMPTY;
+        return new MarketSearchIndex(Collections.unmodifiableList(new ArrayList<>(pairs)));
+    }
+
+    public List<AssetPairDto> search(String rawQuery) {
+        String query = normalise(rawQuery);
+        if (query.isEmpty()) return pairs;
+
+        int n = Math.min(MAX_GRAM, query.length());
+        int[] candidates = null;
+        for (int i = 0; i + n <= query.length(); i++) {
+            int[] posting = postings.get(query.substring(i, i + n));
+            if (posting == null) return Collections.emptyList();
+            candidates = candidates == null ? posting : intersect(candidates, posting);
+            if (candidates.length == 0) return Collections.emptyList();
+        }
+
+        List<AssetPairDto> prefixMatches = new ArrayList<>();
+        List<AssetPairDto> innerMatches = new ArrayList<>();
+        for (int id : candidates) {
+            String key = keys[id];
+            int at = key.indexOf(query);
+            if (at < 0) continue; // all grams present, but not contiguous
+            if (isSegmentStart(key, at) || startsAnySegment(key, query, at)) {
+                prefixMatches.add(pairs.get(id));
+            } else {
+                innerMatches.add(pairs.get(id));
+            }
+        }
+        prefixMatches.addAll(innerMatches);
+        return prefixMatches;
+    }
+
+    public static String normalise(String raw) {
+        return raw != null ? raw.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static String buildKey(AssetPairDto pair) {
+        Set<String> variants = new LinkedHashSet<>();
+        for (String field : new String[]{pair.display(), pair.wsName()}) {
+            String base = normalise(field);
+            if (base.isEmpty()) continue;
+            variants.add(base);
+            variants.add(aliased(base));
+        }
+        return String.join(String.valueOf(SEPARATOR), variants);
+    }
+
+    private static String aliased(String key) {
+        String[] segments = key.split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ALIASES.getOrDefault(segments[i], segments[i]);
+        }
+        return String.join("/", segments);
+    }
+
+    private static void addGrams(Map<String, IntList> building, String key, int id) {
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= key.length(); i++) {
+                String gram = key.substring(i, i + n);
+                if (gram.indexOf(SEPARATOR) >= 0) continue;
+                IntList posting = building.get(gram);
+                if (posting == null) {
+                    posting = new IntList();
+                    building.put(gram, posting);
+                }
+                posting.addIfLast(id);
+            }
+        }
+    }
+
+    private static boolean isSegmentStart(String key, int at) {
+        if (at == 0) return true;
+        char prev = key.charAt(at - 1);
+        return prev == SEPARATOR || prev == '/';
+    }
+
+    private static boolean startsAnySegment(String key, String query, int from) {
+        for (int at = key.indexOf(query, from + 1); at >= 0; at = key.indexOf(query, at + 1)) {
+            if (isSegmentStart(key, at)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Intersection of two ascending id lists.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return k == out.length ? out : Arrays.copyOf(out, k);
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        /**
+         * Ids arrive in ascending order; a gram seen twice in one key is stored once.
+         */
+        void addIfLast(int id) {
+            if (size > 0 && values[size - 1] == id) return;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.f119589.ui.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide LRU of decoded sparklines keyed by symbol and OHLC cache timestamp.
+ * <p>
+ * Decoding (and downsampling for the last known width) happens on a background thread via
+ * {@link #prefetch}; binding a row only calls {@link #peek}.
+ * A new OHLC fetch changes the timestamp, so stale entries simply age out.
+ */
+public final class SparklineCache {
+
+    private static final int MAX_BYTES = 512 * 1024;
+
+    public interface OnLoaded {
+        void onSparklineLoaded(String symbol);
+    }
+
+    private record Key(String symbol, long ohlcUpdatedAt) {
+    }
+
+    private static volatile SparklineCache INSTANCE;
+
+    private final LruCache<Key, SparklineSeries> cache = new LruCache<>(MAX_BYTES) {
+        @Override
+        protected int sizeOf(Key key, SparklineSeries value) {
+            return 32 + value.size() * Float.BYTES;
+        }
+    };
+    private final Set<Key> inFlight = new HashSet<>();
+    private final ExecutorService decodeIo = Executors.newSingleThreadExecutor();
+    private final Handler main = new Handler(Looper.getMainLooper());
+
+    private SparklineCache() {
+    }
+
+    public static SparklineCache get() {
+        if (INSTANCE == null) {
+            synchronized (SparklineCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new SparklineCache();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    @Nullable
+    public SparklineSeries peek(String symbol, long ohlcUpdatedAt) {
+        return cache.get(new Key(symbol, ohlcUpdatedAt));
+    }
+
+    /**
+     * Decodes {@code ohlcBlob} off the main thread unless it is cached or already being decoded.
+     * {@code callback} runs on the main thread once the series is available.
+     */
+    public void prefetch(String symbol,
+                         long ohlcUpdatedAt,
+                         @Nullable byte[] ohlcBlob,
+                         int widthPx,
+                         OnLoaded callback) {
+        if (ohlcBlob == null || ohlcBlob.length == 0) return;
+        Key key = new Key(symbol, ohlcUpdatedAt);
+        if (cache.get(key) != null) return;
+        synchronized (inFlight) {
+            if (!inFlight.add(key)) return;
+        }
+        decodeIo.execute(() -> {
+            try {
+                SparklineSeries series = SparklineParser.parseSeries(ohlcBlob);
+                series.sampled(widthPx, SparklineDownsampler.Mode.LTTB); // warm the memo for the current width
+                cache.put(key, series);
+            } finally {
+                synchronized (inFlight) {
+                    inFlight.remove(key);
+                }
+            }
+            main.post(() -> callback.onSparklineLoaded(symbol));
+        });
+    }
+}
@@ -0,0 +1,160 @@
+package com.f119589.ui.util;
+
+/**
+ * Shape-preserving downsampling for sparklines.
+ * <ul>
+ *     <li>{@link Mode#LTTB}: Largest-Triangle-Three-Buckets, keeps the visually significant points
+ *     (spikes survive) with roughly one point every {@link #LTTB_PX_PER_POINT} pixels.</li>
+ *     <li>{@link Mode#MIN_MAX}: one bucket per pixel column, emitting that bucket's min and max,
+ *     so the drawn envelope is exact at the rendered resolution.</li>
+ * </ul>
+ * Both are single-pass, O(n) in the input length. X values are the original sample indices, so
+ * spacing in time is preserved after decimation.
+ */
+public final class SparklineDownsampler {
+
+    private SparklineDownsampler() {
+        // Utility class - prevent instantiation
+    }
+
+    public enum Mode {
+        LTTB,
+        MIN_MAX
+    }
+
+    static final int LTTB_PX_PER_POINT = 3;
+
+    public static final class Points {
+        private final float[] x;
+        private final float[] y;
+
+        Points(float[] x, float[] y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        public float[] getX() {
+            return x;
+        }
+
+        public float[] getY() {
+            return y;
+        }
+
+        public int size() {
+            return y.length;
+        }
+    }
+
+    public static Points downsample(float[] values, int widthPx, Mode mode) {
+        int n = values.length;
+        if (mode == Mode.MIN_MAX) {
+            int buckets = Math.max(1, widthPx);
+            return n <= buckets * 2 ? identity(values) : minMax(values, buckets);
+        }
+        int threshold = Math.max(3, widthPx / LTTB_PX_PER_POINT);
+        return n <= threshold ? identity(values) : lttb(values, threshold);
+    }
+
+    private static Points identity(float[] values) {
+        float[] x = new float[values.length];
+        for (int i = 0; i < x.length; i++) x[i] = i;
+        return new Points(x, values);
+    }
+
+    static Points lttb(float[] y, int threshold) {
+        int n = y.length;
+        float[] outX = new float[threshold];
+        float[] outY = new float[threshold];
+        int o = 0;
+
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        outX[o] = 0;
+        outY[o++] = y[0];
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket is the third triangle vertex
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            int avgLen = avgEnd - avgStart;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += j;
+                avgY += y[j];
+            }
+            if (avgLen > 0) {
+                avgX /= avgLen;
+                avgY /= avgLen;
+            } else {
+                avgX = n - 1;
+                avgY = y[n - 1];
+            }
+
+            // Pick the point of the current bucket forming the largest triangle with a and the average
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = Math.min((int) Math.floor((i + 1) * every) + 1, n - 1);
+            double ay = y[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((a - avgX) * (y[j] - ay) - (a - j) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            outX[o] = next;
+            outY[o++] = y[next];
+            a = next;
+        }
+
+        outX[o] = n - 1;
+        outY[o] = y[n - 1];
+        return new Points(outX, outY);
+    }
+
+    static Points minMax(float[] y, int buckets) {
+        int n = y.length;
+        float[] outX = new float[buckets * 2 + 2];
+        float[] outY = new float[buckets * 2 + 2];
+        int o = 0;
+
+        double size = (double) n / buckets;
+        for (int b = 0; b < buckets; b++) {
+            int start = (int) (b * size);
+            int end = Math.min((int) ((b + 1) * size), n);
+            if (start >= end) continue;
+            int minIdx = start;
+            int maxIdx = start;
+            for (int j = start + 1; j < end; j++) {
+                if (y[j] < y[minIdx]) minIdx = j;
+                if (y[j] > y[maxIdx]) maxIdx = j;
+            }
+            int first = Math.min(minIdx, maxIdx);
+            int second = Math.max(minIdx, maxIdx);
+            // Keep the series endpoints so the line spans the full width
+            if (b == 0 && first != 0) {
+                outX[o] = 0;
+                outY[o++] = y[0];
+            }
+            outX[o] = first;
+            outY[o++] = y[first];
+            if (second != first) {
+                outX[o] = second;
+                outY[o++] = y[second];
+            }
+            if (b == buckets - 1 && second != n - 1) {
+                outX[o] = n - 1;
+                outY[o++] = y[n - 1];
+            }
+        }
+
+        float[] x = new float[o];
+        float[] v = new float[o];
+        System.arraycopy(outX, 0, x, 0, o);
+        System.arraycopy(outY, 0, v, 0, o);
+        return new Points(x, v);
+    }
+}
@@ -2,20 +2,11 @@ package com.f119589.ui.util;
 
 import android.util.Log;
 
-import com.github.mikephil.charting.data.Entry;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
-import lombok.Getter;
+import com.f119589.data.series.OhlcSeriesCodec;
 
 /**
- * Parses a compact JSON string like: [[tsSec, close], [tsSec, close], ...]
- * into MPAndroidChart Entry list. Uses the INDEX as X for simplicity.
+ * Decodes the cached OHLC blob (see {@link OhlcSeriesCodec}) into a primitive {@link SparklineSeries}.
+ * Uses the INDEX as X for simplicity.
  */
 public final class SparklineParser {
 
@@ -24,69 +15,27 @@ public final class SparklineParser {
 
     private static final String TAG = "SparklineParser";
 
-    @Getter
-    public static final class MinMax {
-        private final Double low;
-        private final Double high;
-
-        private MinMax(Double low, Double high) {
-            this.low = low;
-            this.high = high;
-        }
-
-    }
-
-    @Getter
-    public static final class ParseResult {
-        private final List<Entry> entries;
-        private final MinMax minMax;
-
-        private ParseResult(List<Entry> entries, MinMax minMax) {
-            List<Entry> safeEntries = entries == null ? new ArrayList<>() : entries;
-            this.entries = Collections.unmodifiableList(safeEntries);
-            this.minMax = minMax == null ? new MinMax(null, null) : minMax;
-        }
-
-    }
-
-    public static List<Entry> parse(String compactJson) {
-        return parseWithMinMax(compactJson).getEntries();
-    }
-
-    public static ParseResult parseWithMinMax(String compactJson) {
-        if (compactJson == null || compactJson.isEmpty()) {
-            return new ParseResult(new ArrayList<>(), new MinMax(null, null));
+    /**
+     * Keeps every point (downsampling happens per rendered width, see {@link SparklineDownsampler});
+     * low/high come from the full series. Meant to run off the main thread (see {@link SparklineCache}).
+     */
+    public static SparklineSeries parseSeries(byte[] ohlcBlob) {
+        if (ohlcBlob == null || ohlcBlob.length == 0) {
+            return SparklineSeries.EMPTY;
         }
         try {
-            JsonArray arr = asArray(JsonParser.parseString(compactJson));
-            if (arr == null) {
-                return new ParseResult(new ArrayList<>(), new MinMax(null, null));
+            float[] closes = OhlcSeriesCodec.decodeCloses(ohlcBlob);
+            if (closes.length == 0) return SparklineSeries.EMPTY;
+            double min = closes[0];
+            double max = closes[0];
+            for (float v : closes) {
+                if (v < min) min = v;
+                if (v > max) max = v;
             }
-
-            // Optional: downsample if very long (keep ~150 points for smooth UI)
-            int maxPoints = 150;
-            int step = Math.max(1, arr.size() / maxPoints);
-
-            List<Entry> out = new ArrayList<>();
-            int i = 0;
-            Double min = null;
-            Double max = null;
-            for (int idx = 0; idx < arr.size(); idx += step) {
-                JsonArray row = asArray(arr.get(idx));
-                if (row == null || row.size() < 2 || !row.get(1).isJsonPrimitive()) continue;
-                double v = row.get(1).getAsDouble();
-                if (min == null || v < min) min = v;
-                if (max == null || v > max) max = v;
-                out.add(new Entry(i++, (float) v));
-            }
-            return new ParseResult(out, new MinMax(min, max));
+            return new SparklineSeries(closes, min, max);
         } catch (Exception ex) {
-            Log.w(TAG, "Failed to parse sparkline json", ex);
-            return new ParseResult(new ArrayList<>(), new MinMax(null, null));
+            Log.w(TAG, "Failed to decode sparkline blob", ex);
+            return SparklineSeries.EMPTY;
         }
     }
-
-    private static JsonArray asArray(JsonElement el) {
-        return el != null && el.isJsonArray() ? el.getAsJsonArray() : null;
-    }
 }
@@ -0,0 +1,63 @@
+package com.f119589.ui.util;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Decoded sparkline: the full-resolution close prices as a primitive array, plus the exact 24h low/high
+ * computed over all of them. Immutable once built; shared between rows through {@link SparklineCache}.
+ * <p>
+ * The downsampled points for the rendered width are computed on demand and memoized, so rebinding a
+ * row at the same width is a field read.
+ */
+@Getter
+public final class SparklineSeries {
+
+    public static final SparklineSeries EMPTY = new SparklineSeries(new float[0], null, null);
+
+    private final float[] values;
+    private final Double low;
+    private final Double high;
+
+    private static final class Sampled {
+        final int widthPx;
+        final SparklineDownsampler.Mode mode;
+        final SparklineDownsampler.Points points;
+
+        Sampled(int widthPx, SparklineDownsampler.Mode mode, SparklineDownsampler.Points points) {
+            this.widthPx = widthPx;
+            this.mode = mode;
+            this.points = points;
+        }
+    }
+
+    @Getter(AccessLevel.NONE)
+    private volatile Sampled lastSampled;
+
+    SparklineSeries(float[] values, Double low, Double high) {
+        this.values = values;
+        this.low = low;
+        this.high = high;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * Points to draw for a sparkline {@code widthPx} wide. The target point count follows from the width.
+     */
+    public SparklineDownsampler.Points sampled(int widthPx, SparklineDownsampler.Mode mode) {
+        Sampled s = lastSampled;
+        if (s != null && s.widthPx == widthPx && s.mode == mode) {
+            return s.points;
+        }
+        SparklineDownsampler.Points points = SparklineDownsampler.downsample(values, widthPx, mode);
+        lastSampled = new Sampled(widthPx, mode, points);
+        return points;
+    }
+}
@@ -0,0 +1,187 @@
+package com.f119589.ui.util;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.f119589.R;
+
+import java.util.Arrays;
+
+/**
+ * Minimal sparkline: a precomputed line {@link Path} plus a low-alpha fill underneath.
+ * <p>
+ * Points come straight from a primitive {@link SparklineSeries} (downsampled to the view width) and the
+ * path objects are reused across rebinds. {@link #appendPoint} extends the line in place while the new
+ * point fits the current bounds, and only rebuilds the path when the scale has to change.
+ */
+public class SparklineView extends View {
+
+    private static final float LINE_WIDTH_DP = 1.8f;
+    private static final int FILL_ALPHA = 120;
+    private static final float Y_SPACE_FRACTION = 0.1f;
+    /**
+     * Spare x slots reserved to the right of the series for live points appended between OHLC refreshes.
+     */
+    private static final int LIVE_HEADROOM_POINTS = 3;
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path linePath = new Path();
+    private final Path fillPath = new Path();
+
+    private SparklineSeries series;
+    private float[] xs = new float[0];
+    private float[] ys = new float[0];
+    private int count;
+
+    private float maxX;
+    private float minY;
+    private float maxY;
+
+    public SparklineView(Context context) {
+        this(context, null);
+    }
+
+    public SparklineView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public SparklineView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        int accent = ContextCompat.getColor(context, R.color.sparkline_primary);
+
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(TypedValue.applyDimension(
+                TypedValue.COMPLEX_UNIT_DIP, LINE_WIDTH_DP, getResources().getDisplayMetrics()));
+        linePaint.setStrokeJoin(Paint.Join.ROUND);
+        linePaint.setStrokeCap(Paint.Cap.ROUND);
+        linePaint.setColor(accent);
+
+        // Subtle fill under the line
+        fillPaint.setStyle(Paint.Style.FILL);
+        fillPaint.setColor((accent & 0x00FFFFFF) | (FILL_ALPHA << 24));
+    }
+
+    public void setSeries(@Nullable SparklineSeries series) {
+        if (series == this.series) return;
+        this.series = series;
+        loadPoints();
+        invalidate();
+    }
+
+    /**
+     * Appends a live point one x step after the last one.
+     */
+    public void appendPoint(float value) {
+        if (count == 0) return;
+        ensureCapacity(count + 1);
+        float x = xs[count - 1] + 1f;
+        xs[count] = x;
+        ys[count] = value;
+        count++;
+
+        if (x <= maxX && value >= minY && value <= maxY && getWidth() > 0) {
+            linePath.lineTo(mapX(x), mapY(value));
+            rebuildFill();
+        } else {
+            computeBounds();
+            rebuildPath();
+        }
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        loadPoints();
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (count < 2) return;
+        canvas.drawPath(fillPath, fillPaint);
+        canvas.drawPath(linePath, linePaint);
+    }
+
+    private void loadPoints() {
+        count = 0;
+        linePath.rewind();
+        fillPath.rewind();
+        int width = getWidth();
+        if (series == null || series.isEmpty() || width <= 0) return;
+
+        SparklineDownsampler.Points points = series.sampled(width, SparklineDownsampler.Mode.LTTB);
+        int n = points.size();
+        ensureCapacity(n + LIVE_HEADROOM_POINTS);
+        System.arraycopy(points.getX(), 0, xs, 0, n);
+        System.arraycopy(points.getY(), 0, ys, 0, n);
+        count = n;
+        computeBounds();
+        rebuildPath();
+    }
+
+    private void ensureCapacity(int size) {
+        if (xs.length >= size) return;
+        int capacity = Math.max(size, xs.length * 2);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+    }
+
+    private void computeBounds() {
+        float lo = ys[0];
+        float hi = ys[0];
+        for (int i = 1; i < count; i++) {
+            if (ys[i] < lo) lo = ys[i];
+            if (ys[i] > hi) hi = ys[i];
+        }
+        float space = (hi - lo) * Y_SPACE_FRACTION;
+        minY = lo - space;
+        maxY = hi + space;
+        maxX = Math.max(1f, xs[count - 1] + LIVE_HEADROOM_POINTS);
+    }
+
+    private void rebuildPath() {
+        linePath.rewind();
+        if (count < 2) {
+            fillPath.rewind();
+            return;
+        }
+        linePath.moveTo(mapX(xs[0]), mapY(ys[0]));
+        for (int i = 1; i < count; i++) {
+            linePath.lineTo(mapX(xs[i]), mapY(ys[i]));
+        }
+        rebuildFill();
+    }
+
+    private void rebuildFill() {
+        float bottom = getHeight() - getPaddingBottom();
+        fillPath.set(linePath);
+        fillPath.lineTo(mapX(xs[count - 1]), bottom);
+        fillPath.lineTo(mapX(xs[0]), bottom);
+        fillPath.close();
+    }
+
+    private float mapX(float x) {
+        float left = getPaddingLeft();
+        float width = getWidth() - left - getPaddingRight();
+        return left + (x / maxX) * width;
+    }
+
+    private float mapY(float y) {
+        float top = getPaddingTop();
+        float height = getHeight() - top - getPaddingBottom();
+        float range = maxY - minY;
+        if (range <= 0f) return top + height / 2f;
+        return top + (1f - (y - minY) / range) * height;
+    }
+}
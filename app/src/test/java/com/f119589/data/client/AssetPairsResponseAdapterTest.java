@@ -0,0 +1,80 @@
+package com.f119589.data.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.f119589.data.entity.AssetPair;
+import com.f119589.dto.AssetPairsResponse;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AssetPairsResponseAdapterTest {
+
+    private final Gson gson = new Gson();
+
+    private AssetPairsResponse readFixture(String name) throws Exception {
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("/fixtures/" + name), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, AssetPairsResponse.class);
+        }
+    }
+
+    @Test
+    public void recordedCatalogDecodesSortedRows() throws Exception {
+        AssetPairsResponse response = readFixture("asset_pairs.json");
+        assertTrue(response.error().isEmpty());
+
+        // The ".d" dark pool entry has no wsname and is dropped
+        List<String> wsNames = new ArrayList<>();
+        for (AssetPair pair : response.pairs()) wsNames.add(pair.getWsName());
+        assertEquals(List.of("ETH/XBT", "XBT/EUR", "SOL/USD", "ETH/USD", "XBT/USD", "XDG/USD"), wsNames);
+    }
+
+    @Test
+    public void recordedPairKeepsNamesAndPrettifiedDisplay() throws Exception {
+        AssetPair btc = null;
+        for (AssetPair pair : readFixture("asset_pairs.json").pairs()) {
+            if ("XBT/USD".equals(pair.getWsName())) btc = pair;
+        }
+        assertEquals("XXBTZUSD", btc.getResultKey());
+        assertEquals("XBTUSD", btc.getAltName());
+        assertEquals("XXBT", btc.getBase());
+        assertEquals("ZUSD", btc.getQuote());
+        assertEquals("XXBT/ZUSD", btc.getDisplay());
+    }
+
+    @Test
+    public void errorsAndMissingResultAreReported() {
+        AssetPairsResponse response = gson.fromJson(
+                "{\"error\":[\"EGeneral:Too many requests\"]}", AssetPairsResponse.class);
+        assertEquals(List.of("EGeneral:Too many requests"), response.error());
+        assertNull(response.pairs());
+    }
+
+    @Test
+    public void missingQuoteOrBaseSortsFirstAndTiesBreakOnWsName() {
+        String json = "{\"error\":[],\"result\":{"
+                + "\"B\":{\"altname\":\"BUSD\",\"wsname\":\"B/USD\",\"base\":\"AAA\",\"quote\":\"ZUSD\"},"
+                + "\"A\":{\"altname\":\"AUSD\",\"wsname\":\"A/USD\",\"base\":\"AAA\",\"quote\":\"ZUSD\"},"
+                + "\"N\":{\"altname\":\"NOQ\",\"wsname\":\"N/Q\",\"base\":\"AAA\"},"
+                + "\"M\":{\"altname\":\"NOB\",\"wsname\":\"M/Q\",\"quote\":\"ZUSD\"}}}";
+        List<AssetPair> pairs = gson.fromJson(json, AssetPairsResponse.class).pairs();
+
+        List<String> wsNames = new ArrayList<>();
+        for (AssetPair pair : pairs) wsNames.add(pair.getWsName());
+        assertEquals(List.of("N/Q", "M/Q", "A/USD", "B/USD"), wsNames);
+    }
+
+    @Test
+    public void writingADecodedResponseYieldsNull() {
+        assertEquals("null", gson.toJson(new AssetPairsResponse(List.of(), List.of()), AssetPairsResponse.class));
+    }
+}
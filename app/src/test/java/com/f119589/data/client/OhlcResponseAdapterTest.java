@@ -0,0 +1,76 @@
+package com.f119589.data.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.f119589.data.series.OhlcSeries;
+import com.f119589.dto.OhlcResponse;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class OhlcResponseAdapterTest {
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void recordedResponseDecodesTimeAndCloseOnly() throws Exception {
+        OhlcResponse response;
+        try (Reader reader = new InputStreamReader(
+                getClass().getResourceAsStream("/fixtures/ohlc_xbtusd.json"), StandardCharsets.UTF_8)) {
+            response = gson.fromJson(reader, OhlcResponse.class);
+        }
+        assertTrue(response.error().isEmpty());
+        assertEquals(1_718_009_400L, response.last());
+
+        OhlcSeries series = response.series();
+        assertEquals(12, series.size());
+        assertEquals(1_718_006_400L, series.timeAt(0));
+        assertEquals(64350.0, series.closeAt(0), 0.0);
+        assertEquals(1_718_009_700L, series.timeAt(11));
+        assertEquals(64364.4, series.closeAt(11), 0.0);
+        for (int i = 1; i < series.size(); i++) {
+            assertEquals(300L, series.timeAt(i) - series.timeAt(i - 1));
+        }
+    }
+
+    @Test
+    public void lastMayPrecedeTheRows() {
+        String json = "{\"error\":[],\"result\":{\"last\":1718000300,"
+                + "\"XXBTZUSD\":[[1718000000,\"1.0\",\"2.0\",\"0.5\",\"1.5\",\"1.2\",\"10.0\",3]]}}";
+        OhlcResponse response = gson.fromJson(json, OhlcResponse.class);
+        assertEquals(1_718_000_300L, response.last());
+        assertEquals(1, response.series().size());
+        assertEquals(1.5, response.series().closeAt(0), 0.0);
+    }
+
+    @Test
+    public void truncatedRowsAreSkipped() {
+        String json = "{\"error\":[],\"result\":{\"XXBTZUSD\":["
+                + "[1718000000,\"1.0\",\"2.0\"],"
+                + "[1718000300,\"1.0\",\"2.0\",\"0.5\",\"1.75\",\"1.2\",\"10.0\",3]],\"last\":1718000300}}";
+        OhlcSeries series = gson.fromJson(json, OhlcResponse.class).series();
+        assertEquals(1, series.size());
+        assertEquals(1_718_000_300L, series.timeAt(0));
+        assertEquals(1.75, series.closeAt(0), 0.0);
+    }
+
+    @Test
+    public void errorResponseHasNoSeries() {
+        OhlcResponse response = gson.fromJson("{\"error\":[\"EQuery:Unknown asset pair\"]}", OhlcResponse.class);
+        assertEquals(List.of("EQuery:Unknown asset pair"), response.error());
+        assertNull(response.series());
+        assertEquals(0L, response.last());
+    }
+
+    @Test
+    public void writingADecodedResponseYieldsNull() {
+        assertEquals("null", gson.toJson(new OhlcResponse(List.of(), new OhlcSeries(), 0L), OhlcResponse.class));
+    }
+}
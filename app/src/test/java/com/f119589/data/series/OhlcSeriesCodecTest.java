@@ -0,0 +1,119 @@
+package com.f119589.data.series;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class OhlcSeriesCodecTest {
+
+    // Byte 1 of a blob, see the format in OhlcSeriesCodec
+    private static final byte CLOSES_SCALED = 0;
+    private static final byte CLOSES_RAW = 1;
+
+    private static final long BASE_SEC = 1_718_000_000L;
+    private static final long FIVE_MIN_SEC = 300L;
+
+    @Test
+    public void emptySeriesRoundTrips() {
+        byte[] blob = OhlcSeriesCodec.encode(new OhlcSeries());
+        assertEquals(0, OhlcSeriesCodec.decode(blob).size());
+        assertEquals(0, OhlcSeriesCodec.decodeCloses(blob).length);
+    }
+
+    @Test
+    public void singlePointRoundTrips() {
+        OhlcSeries series = new OhlcSeries();
+        series.add(BASE_SEC, 64350.1);
+        assertRoundTrips(series);
+    }
+
+    @Test
+    public void priceClosesUseScaledIntegers() {
+        OhlcSeries series = new OhlcSeries();
+        double[] closes = {64350.1, 64352.4, 64349.9, 64360.0, 64355.55};
+        for (int i = 0; i < closes.length; i++) series.add(BASE_SEC + i * FIVE_MIN_SEC, closes[i]);
+
+        byte[] blob = OhlcSeriesCodec.encode(series);
+        assertEquals(CLOSES_SCALED, blob[1]);
+        assertRoundTrips(series);
+    }
+
+    @Test
+    public void unscalableClosesFallBackToRawDoubles() {
+        OhlcSeries series = new OhlcSeries();
+        series.add(BASE_SEC, 0.1);
+        series.add(BASE_SEC + FIVE_MIN_SEC, Math.PI);
+        series.add(BASE_SEC + 2 * FIVE_MIN_SEC, 1.0 / 3.0);
+
+        byte[] blob = OhlcSeriesCodec.encode(series);
+        assertEquals(CLOSES_RAW, blob[1]);
+        assertRoundTrips(series);
+    }
+
+    @Test
+    public void nonFiniteClosesFallBackToRawDoubles() {
+        OhlcSeries series = new OhlcSeries();
+        series.add(BASE_SEC, 1.5);
+        series.add(BASE_SEC + FIVE_MIN_SEC, Double.NaN);
+
+        byte[] blob = OhlcSeriesCodec.encode(series);
+        assertEquals(CLOSES_RAW, blob[1]);
+        OhlcSeries decoded = OhlcSeriesCodec.decode(blob);
+        assertEquals(1.5, decoded.closeAt(0), 0.0);
+        assertTrue(Double.isNaN(decoded.closeAt(1)));
+    }
+
+    @Test
+    public void negativeDeltasRoundTrip() {
+        // Falling closes and out-of-order timestamps both produce negative deltas
+        OhlcSeries series = new OhlcSeries();
+        series.add(BASE_SEC, 100.25);
+        series.add(BASE_SEC + FIVE_MIN_SEC, 90.5);
+        series.add(BASE_SEC - FIVE_MIN_SEC, 0.75);
+        series.add(BASE_SEC + 10 * FIVE_MIN_SEC, -12.125);
+        series.add(BASE_SEC + 11 * FIVE_MIN_SEC, 1_000_000.0);
+        assertRoundTrips(series);
+    }
+
+    @Test
+    public void fullDayOfCandlesRoundTripsCompactly() {
+        OhlcSeries series = new OhlcSeries();
+        double price = 0.08123;
+        for (int i = 0; i < 288; i++) {
+            price += ((i * 7919) % 13 - 6) * 0.00001;
+            series.add(BASE_SEC + i * FIVE_MIN_SEC, Math.round(price * 100_000d) / 100_000d);
+        }
+        byte[] blob = OhlcSeriesCodec.encode(series);
+        assertEquals(CLOSES_SCALED, blob[1]);
+        // 2-byte time deltas and 1-byte close deltas
+        assertTrue("blob is " + blob.length + " bytes", blob.length < 288 * 4);
+        assertRoundTrips(series);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownVersionIsRejected() {
+        OhlcSeriesCodec.decode(new byte[]{9, 0, 0});
+    }
+
+    @Test
+    public void missingBlobDecodesEmpty() {
+        assertEquals(0, OhlcSeriesCodec.decode(null).size());
+        assertEquals(0, OhlcSeriesCodec.decodeCloses(new byte[0]).length);
+    }
+
+    private static void assertRoundTrips(OhlcSeries series) {
+        byte[] blob = OhlcSeriesCodec.encode(series);
+        OhlcSeries decoded = OhlcSeriesCodec.decode(blob);
+        float[] closes = OhlcSeriesCodec.decodeCloses(blob);
+        assertEquals(series.size(), decoded.size());
+        float[] expectedFloats = new float[series.size()];
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals("time " + i, series.timeAt(i), decoded.timeAt(i));
+            assertEquals("close " + i, series.closeAt(i), decoded.closeAt(i), 0.0);
+            expectedFloats[i] = (float) series.closeAt(i);
+        }
+        assertArrayEquals(expectedFloats, closes, 0f);
+    }
+}
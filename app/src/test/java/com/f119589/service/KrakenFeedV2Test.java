@@ -0,0 +1,147 @@
+package com.f119589.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KrakenFeedV2Test {
+
+    // Frames as captured from wss://ws.kraken.com/v2
+    private static final String STATUS =
+            "{\"channel\":\"status\",\"data\":[{\"api_version\":\"v2\",\"connection_id\":12393906104898154338,"
+                    + "\"system\":\"online\",\"version\":\"2.0.10\"}],\"type\":\"update\"}";
+    private static final String HEARTBEAT = "{\"channel\":\"heartbeat\"}";
+    private static final String PONG =
+            "{\"method\":\"pong\",\"time_in\":\"2024-05-01T12:00:00.000000Z\",\"time_out\":\"2024-05-01T12:00:00.000012Z\"}";
+    private static final String SUBSCRIBED =
+            "{\"method\":\"subscribe\",\"result\":{\"channel\":\"ticker\",\"event_trigger\":\"bbo\",\"snapshot\":true,"
+                    + "\"symbol\":\"BTC/USD\"},\"success\":true,\"time_in\":\"2024-05-01T12:00:00.123456Z\","
+                    + "\"time_out\":\"2024-05-01T12:00:00.123789Z\"}";
+    private static final String UNSUBSCRIBED =
+            "{\"method\":\"unsubscribe\",\"result\":{\"channel\":\"ticker\",\"symbol\":\"DOGE/USD\"},\"success\":true,"
+                    + "\"time_in\":\"2024-05-01T12:00:01.000000Z\",\"time_out\":\"2024-05-01T12:00:01.000100Z\"}";
+    private static final String SUBSCRIBE_ERROR =
+            "{\"error\":\"Currency pair not supported\",\"method\":\"subscribe\",\"success\":false,\"symbol\":\"ABC/USD\","
+                    + "\"time_in\":\"2024-05-01T12:00:00.000000Z\",\"time_out\":\"2024-05-01T12:00:00.000050Z\"}";
+    private static final String TICKER_SNAPSHOT =
+            "{\"channel\":\"ticker\",\"type\":\"snapshot\",\"data\":["
+                    + "{\"symbol\":\"BTC/USD\",\"bid\":64350.0,\"bid_qty\":0.5,\"ask\":64350.1,\"ask_qty\":1.2,"
+                    + "\"last\":64350.1,\"volume\":1234.5678,\"vwap\":64012.3,\"low\":63000.0,\"high\":65000.0,"
+                    + "\"change\":850.1,\"change_pct\":1.34,\"timestamp\":\"2024-05-01T12:34:56.789123Z\"},"
+                    + "{\"symbol\":\"DOGE/USD\",\"bid\":0.1612,\"bid_qty\":5000.0,\"ask\":0.1613,\"ask_qty\":4200.0,"
+                    + "\"last\":0.16125,\"volume\":9876543.2,\"vwap\":0.1598,\"low\":0.155,\"high\":0.165,"
+                    + "\"change\":0.003,\"change_pct\":1.9,\"timestamp\":\"2024-05-01T12:34:57.000000Z\"}]}";
+
+    private static final class Recorder implements TickerFeed.Handler {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onTick(String pair, double lastPrice, long serverTimeMs) {
+            events.add("tick " + pair + " " + lastPrice + " " + serverTimeMs);
+        }
+
+        @Override
+        public void onSubscriptionStatus(String status, String pair, String errorMessage) {
+            events.add("status " + status + " " + pair + " " + errorMessage);
+        }
+
+        @Override
+        public void onEvent(String event, String status) {
+            events.add("event " + event + " " + status);
+        }
+    }
+
+    private final KrakenFeedV2 feed = new KrakenFeedV2();
+    private final Recorder recorder = new Recorder();
+
+    private static long epochMs(String ts) {
+        return Instant.parse(ts).toEpochMilli();
+    }
+
+    @Test
+    public void subscribeFrameUsesV2SpellingAndBboTrigger() {
+        assertEquals("{\"method\":\"subscribe\",\"params\":{\"channel\":\"ticker\","
+                        + "\"symbol\":[\"BTC/USD\",\"DOGE/EUR\",\"ETH/BTC\"],\"event_trigger\":\"bbo\",\"snapshot\":true}}",
+                feed.subscriptionFrame(true, List.of("XBT/USD", "XDG/EUR", "ETH/XBT")));
+        assertEquals("{\"method\":\"unsubscribe\",\"params\":{\"channel\":\"ticker\",\"symbol\":[\"BTC/USD\"]}}",
+                feed.subscriptionFrame(false, List.of("XBT/USD")));
+    }
+
+    @Test
+    public void quoteAliasesAreTranslatedToo() {
+        assertEquals("ETH/BTC", KrakenFeedV2.toV2("ETH/XBT"));
+        assertEquals("SOL/USD", KrakenFeedV2.toV2("SOL/USD"));
+    }
+
+    @Test
+    public void batchedTickerReportsEveryEntryInAppSpelling() throws IOException {
+        feed.subscriptionFrame(true, List.of("XBT/USD", "XDG/USD"));
+        feed.decode(TICKER_SNAPSHOT, recorder);
+        assertEquals(List.of(
+                "tick XBT/USD 64350.1 " + epochMs("2024-05-01T12:34:56.789Z"),
+                "tick XDG/USD 0.16125 " + epochMs("2024-05-01T12:34:57Z")), recorder.events);
+    }
+
+    @Test
+    public void tickerSymbolsMapBackWithoutASubscription() throws IOException {
+        feed.decode(TICKER_SNAPSHOT, recorder);
+        assertTrue(recorder.events.get(0).startsWith("tick XBT/USD "));
+        assertTrue(recorder.events.get(1).startsWith("tick XDG/USD "));
+    }
+
+    @Test
+    public void dataBeforeChannelIsStillATicker() throws IOException {
+        feed.decode("{\"data\":[{\"symbol\":\"ETH/USD\",\"last\":3100.5}],\"type\":\"update\",\"channel\":\"ticker\"}",
+                recorder);
+        assertEquals(List.of("tick ETH/USD 3100.5 0"), recorder.events);
+    }
+
+    @Test
+    public void acknowledgementsBecomeSubscriptionStatuses() throws IOException {
+        feed.subscriptionFrame(true, List.of("XBT/USD"));
+        feed.decode(SUBSCRIBED, recorder);
+        feed.decode(UNSUBSCRIBED, recorder);
+        feed.decode(SUBSCRIBE_ERROR, recorder);
+        assertEquals(List.of(
+                "status subscribed XBT/USD null",
+                "status unsubscribed XDG/USD null",
+                "status error ABC/USD Currency pair not supported"), recorder.events);
+    }
+
+    @Test
+    public void heartbeatsAndPongsReportNothing() throws IOException {
+        feed.decode(HEARTBEAT, recorder);
+        feed.decode("{ \"channel\": \"heartbeat\" }", recorder);
+        feed.decode(PONG, recorder);
+        feed.decode("", recorder);
+        feed.decode("[]", recorder);
+        assertTrue(recorder.events.isEmpty());
+    }
+
+    @Test
+    public void otherChannelsAreEvents() throws IOException {
+        feed.decode(STATUS, recorder);
+        assertEquals(List.of("event status update"), recorder.events);
+    }
+
+    @Test
+    public void timestampsParseToEpochMillis() {
+        assertEquals(epochMs("2024-05-01T12:34:56.789Z"), KrakenFeedV2.parseTimestampMs("2024-05-01T12:34:56.789123Z"));
+        assertEquals(epochMs("2024-02-29T23:59:59.500Z"), KrakenFeedV2.parseTimestampMs("2024-02-29T23:59:59.5Z"));
+        assertEquals(epochMs("1999-12-31T00:00:00Z"), KrakenFeedV2.parseTimestampMs("1999-12-31T00:00:00Z"));
+    }
+
+    @Test
+    public void malformedTimestampsParseToZero() {
+        assertEquals(0L, KrakenFeedV2.parseTimestampMs(null));
+        assertEquals(0L, KrakenFeedV2.parseTimestampMs("2024-05-01"));
+        assertEquals(0L, KrakenFeedV2.parseTimestampMs("2024-05-01T12:34:56.789+02:00"));
+        assertEquals(0L, KrakenFeedV2.parseTimestampMs("2024-05-01 12:34:56.789Z"));
+    }
+}
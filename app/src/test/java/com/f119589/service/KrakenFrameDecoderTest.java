@@ -0,0 +1,107 @@
+package com.f119589.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class KrakenFrameDecoderTest {
+
+    // Frames as captured from wss://ws.kraken.com (v1)
+    private static final String HEARTBEAT = "{\"event\":\"heartbeat\"}";
+    private static final String SYSTEM_STATUS =
+            "{\"connectionID\":8628615390848610000,\"event\":\"systemStatus\",\"status\":\"online\",\"version\":\"1.9.1\"}";
+    private static final String SUBSCRIBED =
+            "{\"channelID\":340,\"channelName\":\"ticker\",\"event\":\"subscriptionStatus\",\"pair\":\"XBT/USD\","
+                    + "\"status\":\"subscribed\",\"subscription\":{\"name\":\"ticker\"}}";
+    private static final String SUBSCRIBE_ERROR =
+            "{\"errorMessage\":\"Currency pair not supported ABC/USD\",\"event\":\"subscriptionStatus\","
+                    + "\"pair\":\"ABC/USD\",\"status\":\"error\",\"subscription\":{\"name\":\"ticker\"}}";
+    private static final String PONG = "{\"event\":\"pong\",\"reqid\":42}";
+    private static final String TICKER =
+            "[340,{\"a\":[\"64350.10000\",1,\"1.23400000\"],\"b\":[\"64350.00000\",2,\"2.00000000\"],"
+                    + "\"c\":[\"64350.10000\",\"0.00123000\"],\"v\":[\"1234.56789012\",\"5678.90123456\"],"
+                    + "\"p\":[\"64012.34567\",\"63987.65432\"],\"t\":[12345,67890],"
+                    + "\"l\":[\"63000.00000\",\"62000.00000\"],\"h\":[\"65000.00000\",\"66000.00000\"],"
+                    + "\"o\":[\"63500.00000\",\"62500.00000\"]},\"ticker\",\"XBT/USD\"]";
+    private static final String BOOK =
+            "[336,{\"as\":[[\"64351.00000\",\"0.50000000\",\"1718000000.123456\"]],"
+                    + "\"bs\":[[\"64350.00000\",\"1.00000000\",\"1718000000.123456\"]]},\"book-10\",\"XBT/USD\"]";
+
+    private final KrakenFrameDecoder.Frame frame = new KrakenFrameDecoder.Frame();
+
+    @Test
+    public void heartbeatTakesTheLiteralPath() throws IOException {
+        assertEquals(KrakenFrameDecoder.FrameType.HEARTBEAT, KrakenFrameDecoder.decode(HEARTBEAT, frame));
+        assertEquals("heartbeat", frame.event());
+    }
+
+    @Test
+    public void heartbeatWithWhitespaceIsStillAHeartbeat() throws IOException {
+        assertEquals(KrakenFrameDecoder.FrameType.HEARTBEAT,
+                KrakenFrameDecoder.decode("{ \"event\" : \"heartbeat\" }", frame));
+    }
+
+    @Test
+    public void tickerReadsPairAndLastTradePrice() throws IOException {
+        assertEquals(KrakenFrameDecoder.FrameType.TICKER, KrakenFrameDecoder.decode(TICKER, frame));
+        assertEquals("XBT/USD", frame.pair());
+        assertEquals(64350.1, frame.lastPrice(), 0.0);
+    }
+
+    @Test
+    public void subscriptionStatusCarriesStatusAndPair() throws IOException {
+        assertEquals(KrakenFrameDecoder.FrameType.SUBSCRIPTION_STATUS, KrakenFrameDecoder.decode(SUBSCRIBED, frame));
+        assertEquals("subscribed", frame.status());
+        assertEquals("XBT/USD", frame.pair());
+        assertNull(frame.errorMessage());
+    }
+
+    @Test
+    public void subscriptionErrorCarriesMessage() throws IOException {
+        assertEquals(KrakenFrameDecoder.FrameType.SUBSCRIPTION_STATUS,
+                KrakenFrameDecoder.decode(SUBSCRIBE_ERROR, frame));
+        assertEquals("error", frame.status());
+        assertEquals("ABC/USD", frame.pair());
+        assertEquals("Currency pair not supported ABC/USD", frame.errorMessage());
+    }
+
+    @Test
+    public void otherEventsAreGenericEvents() throws IOException {
+        assertEquals(KrakenFrameDecoder.FrameType.EVENT, KrakenFrameDecoder.decode(SYSTEM_STATUS, frame));
+        assertEquals("systemStatus", frame.event());
+        assertEquals("online", frame.status());
+
+        assertEquals(KrakenFrameDecoder.FrameType.EVENT, KrakenFrameDecoder.decode(PONG, frame));
+        assertEquals("pong", frame.event());
+    }
+
+    @Test
+    public void nonTickerChannelIsUnknown() throws IOException {
+        assertEquals(KrakenFrameDecoder.FrameType.UNKNOWN, KrakenFrameDecoder.decode(BOOK, frame));
+    }
+
+    @Test
+    public void emptyAndNonJsonFramesAreUnknown() throws IOException {
+        assertEquals(KrakenFrameDecoder.FrameType.UNKNOWN, KrakenFrameDecoder.decode(null, frame));
+        assertEquals(KrakenFrameDecoder.FrameType.UNKNOWN, KrakenFrameDecoder.decode("", frame));
+        assertEquals(KrakenFrameDecoder.FrameType.UNKNOWN, KrakenFrameDecoder.decode("pong", frame));
+        assertEquals(KrakenFrameDecoder.FrameType.UNKNOWN, KrakenFrameDecoder.decode("[]", frame));
+        assertEquals(KrakenFrameDecoder.FrameType.UNKNOWN, KrakenFrameDecoder.decode("{}", frame));
+    }
+
+    @Test
+    public void reusedFrameIsResetBetweenDecodes() throws IOException {
+        KrakenFrameDecoder.decode(SUBSCRIBE_ERROR, frame);
+        KrakenFrameDecoder.decode(TICKER, frame);
+        assertNull(frame.status());
+        assertNull(frame.errorMessage());
+
+        KrakenFrameDecoder.decode(HEARTBEAT, frame);
+        assertNull(frame.pair());
+        assertTrue(Double.isNaN(frame.lastPrice()));
+    }
+}
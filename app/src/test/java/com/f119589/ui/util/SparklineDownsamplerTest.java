@@ -0,0 +1,127 @@
+package com.f119589.ui.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SparklineDownsamplerTest {
+
+    private static final int N = 1_000;
+    private static final int SPIKE_AT = 517;
+    private static final int DIP_AT = 811;
+
+    /**
+     * Gentle noise around 100 with one spike and one dip that a step-based sampler would skip.
+     */
+    private static float[] seriesWithSpikes() {
+        float[] y = new float[N];
+        for (int i = 0; i < N; i++) y[i] = 100f + (float) Math.sin(i * 0.05);
+        y[SPIKE_AT] = 150f;
+        y[DIP_AT] = 50f;
+        return y;
+    }
+
+    @Test
+    public void shortSeriesIsReturnedAsIs() {
+        float[] y = {3f, 1f, 4f, 1f, 5f};
+        for (SparklineDownsampler.Mode mode : SparklineDownsampler.Mode.values()) {
+            SparklineDownsampler.Points p = SparklineDownsampler.downsample(y, 450, mode);
+            assertArrayEquals(y, p.getY(), 0f);
+            assertArrayEquals(new float[]{0f, 1f, 2f, 3f, 4f}, p.getX(), 0f);
+        }
+    }
+
+    @Test
+    public void lttbPointCountFollowsWidth() {
+        SparklineDownsampler.Points p = SparklineDownsampler.downsample(seriesWithSpikes(), 300, SparklineDownsampler.Mode.LTTB);
+        assertEquals(300 / SparklineDownsampler.LTTB_PX_PER_POINT, p.size());
+    }
+
+    @Test
+    public void lttbKeepsEndpoints() {
+        float[] y = seriesWithSpikes();
+        SparklineDownsampler.Points p = SparklineDownsampler.downsample(y, 150, SparklineDownsampler.Mode.LTTB);
+        assertEndpoints(y, p);
+    }
+
+    @Test
+    public void lttbKeepsSpikes() {
+        float[] y = seriesWithSpikes();
+        SparklineDownsampler.Points p = SparklineDownsampler.downsample(y, 150, SparklineDownsampler.Mode.LTTB);
+        assertContainsIndex(p, SPIKE_AT, y);
+        assertContainsIndex(p, DIP_AT, y);
+        assertStrictlyIncreasingX(p);
+    }
+
+    @Test
+    public void lttbWithNoWidthStillKeepsThreePoints() {
+        float[] y = seriesWithSpikes();
+        SparklineDownsampler.Points p = SparklineDownsampler.downsample(y, 0, SparklineDownsampler.Mode.LTTB);
+        assertEquals(3, p.size());
+        assertEndpoints(y, p);
+    }
+
+    @Test
+    public void minMaxKeepsEndpointsAndExtremes() {
+        float[] y = seriesWithSpikes();
+        SparklineDownsampler.Points p = SparklineDownsampler.downsample(y, 50, SparklineDownsampler.Mode.MIN_MAX);
+        assertTrue(p.size() <= 50 * 2 + 2);
+        assertEndpoints(y, p);
+        assertContainsIndex(p, SPIKE_AT, y);
+        assertContainsIndex(p, DIP_AT, y);
+        assertStrictlyIncreasingX(p);
+    }
+
+    @Test
+    public void minMaxEnvelopeMatchesEveryBucket() {
+        float[] y = seriesWithSpikes();
+        int buckets = 40;
+        SparklineDownsampler.Points p = SparklineDownsampler.minMax(y, buckets);
+        double size = (double) N / buckets;
+        for (int b = 0; b < buckets; b++) {
+            int start = (int) (b * size);
+            int end = (int) ((b + 1) * size);
+            float min = Float.MAX_VALUE;
+            float max = -Float.MAX_VALUE;
+            for (int j = start; j < end; j++) {
+                min = Math.min(min, y[j]);
+                max = Math.max(max, y[j]);
+            }
+            float outMin = Float.MAX_VALUE;
+            float outMax = -Float.MAX_VALUE;
+            for (int k = 0; k < p.size(); k++) {
+                if (p.getX()[k] >= start && p.getX()[k] < end) {
+                    outMin = Math.min(outMin, p.getY()[k]);
+                    outMax = Math.max(outMax, p.getY()[k]);
+                }
+            }
+            assertEquals("bucket " + b + " min", min, outMin, 0f);
+            assertEquals("bucket " + b + " max", max, outMax, 0f);
+        }
+    }
+
+    private static void assertEndpoints(float[] y, SparklineDownsampler.Points p) {
+        assertEquals(0f, p.getX()[0], 0f);
+        assertEquals(y[0], p.getY()[0], 0f);
+        assertEquals(y.length - 1, p.getX()[p.size() - 1], 0f);
+        assertEquals(y[y.length - 1], p.getY()[p.size() - 1], 0f);
+    }
+
+    private static void assertContainsIndex(SparklineDownsampler.Points p, int index, float[] y) {
+        for (int k = 0; k < p.size(); k++) {
+            if (p.getX()[k] == index) {
+                assertEquals(y[index], p.getY()[k], 0f);
+                return;
+            }
+        }
+        throw new AssertionError("point " + index + " was dropped");
+    }
+
+    private static void assertStrictlyIncreasingX(SparklineDownsampler.Points p) {
+        for (int k = 1; k < p.size(); k++) {
+            assertTrue("x not increasing at " + k, p.getX()[k] > p.getX()[k - 1]);
+        }
+    }
+}